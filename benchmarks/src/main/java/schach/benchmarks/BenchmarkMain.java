@@ -0,0 +1,32 @@
+package schach.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the gc profiler so that the allocation rate is
+ * reported next to the timings. The arguments are regular JMH command line
+ * options, for example a regular expression to select benchmarks.
+ */
+public final class BenchmarkMain {
+  /**
+   * Prevent instances of this class
+   */
+  private BenchmarkMain() {
+  }
+
+  /**
+   * Runs the benchmarks selected by the given JMH options.
+   * 
+   * @param args JMH command line options
+   * @throws RunnerException            If a benchmark fails
+   * @throws CommandLineOptionException If the options are invalid
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build()).run();
+  }
+}
@@ -0,0 +1,20 @@
+package schach.benchmarks;
+
+import schach.interaction.ThreadedPlayer;
+import schach.interaction.TurnStatus;
+
+/**
+ * A player that is never aborted since the search needs a player to check for
+ * aborting.
+ */
+class BenchmarkPlayer extends ThreadedPlayer {
+  @Override
+  protected void requestCommandAsync() {
+    // the search doesn't request commands
+  }
+
+  @Override
+  public void notifyStatus(TurnStatus status) {
+    // the search doesn't notify the player
+  }
+}
@@ -0,0 +1,41 @@
+package schach.benchmarks;
+
+import java.util.Map;
+
+import schach.game.state.GameState;
+
+/**
+ * The fixed corpus of game states the benchmarks run on. These are the well
+ * known perft reference positions so that they cover castling, en passant and
+ * promotions as well as quiet positions.
+ */
+public final class BenchmarkPositions {
+  /**
+   * The positions by name in FEN. The names are used as benchmark parameters.
+   */
+  private static final Map<String, String> POSITIONS = Map.of(
+      "start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+      "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+      "endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+      "middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+
+  /**
+   * Prevent instances of this class
+   */
+  private BenchmarkPositions() {
+  }
+
+  /**
+   * Constructs a new game state for the position with the given name.
+   * 
+   * @param name Name of the position
+   * @return New game state of the position
+   */
+  public static GameState create(String name) {
+    String fen = POSITIONS.get(name);
+    if (fen == null) {
+      throw new IllegalArgumentException("There is no benchmark position named " + name);
+    }
+    return new GameState(fen);
+  }
+}
@@ -0,0 +1,52 @@
+package schach.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import schach.ai.GameEvaluator;
+import schach.game.state.GameState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the evaluation of game states. The game status is cached by the
+ * game state after the first evaluation so this measures only the evaluation of
+ * the pieces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+  @Param({ "start", "kiwipete", "endgame", "middlegame" })
+  private String position;
+
+  private GameState game;
+  private final GameEvaluator evaluator = new GameEvaluator();
+
+  /**
+   * Sets up the game state and evaluates from the perspective of the active
+   * color.
+   */
+  @Setup
+  public void setUp() {
+    game = BenchmarkPositions.create(position);
+    evaluator.setAiColor(game.getActiveColor());
+  }
+
+  @Benchmark
+  public int calculateBoardValue() {
+    return evaluator.calculateBoardValue(game);
+  }
+}
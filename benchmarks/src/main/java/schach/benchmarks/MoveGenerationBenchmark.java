@@ -0,0 +1,73 @@
+package schach.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import schach.common.Color;
+import schach.game.moves.Move;
+import schach.game.state.GameState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks generating the legal moves, applying and reversing moves and
+ * checking if a king is attacked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+  @Param({ "start", "kiwipete", "endgame", "middlegame" })
+  private String position;
+
+  private GameState game;
+  private List<Move> moves;
+  private Color activeColor;
+
+  /**
+   * Sets up the game state and its legal moves.
+   */
+  @Setup
+  public void setUp() {
+    game = BenchmarkPositions.create(position);
+    moves = game.getAllLegalMoves();
+    activeColor = game.getActiveColor();
+  }
+
+  @Benchmark
+  public List<Move> getAllLegalMoves() {
+    return game.getAllLegalMoves();
+  }
+
+  /**
+   * Applies and reverses each legal move.
+   * 
+   * @return Combined hashes of the game states after each move
+   */
+  @Benchmark
+  public long runWithMove() {
+    long hashes = 0;
+    for (Move move : moves) {
+      hashes ^= game.runWithMove(move, game::getHash);
+    }
+    return hashes;
+  }
+
+  @Benchmark
+  public boolean kingAttacked() {
+    return game.getBoard().kingAttacked(activeColor);
+  }
+}
@@ -0,0 +1,71 @@
+package schach.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import schach.ai.MoveCalculator;
+import schach.game.moves.Move;
+import schach.game.state.GameState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks how long the iterative deepening search takes to complete a given
+ * depth with different numbers of threads. Comparing the times shows how the
+ * parallel search scales. The transposition table is cleared before each
+ * invocation so that each search starts without earlier results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParallelSearchBenchmark {
+  @Param({ "kiwipete", "middlegame" })
+  private String position;
+
+  @Param({ "5" })
+  private int depth;
+
+  @Param({ "1", "2", "4", "8" })
+  private int threads;
+
+  private GameState game;
+  private MoveCalculator calculator;
+
+  /**
+   * Sets up the search with the given number of threads.
+   */
+  @Setup
+  public void setUp() {
+    game = BenchmarkPositions.create(position);
+    calculator = MoveCalculator.withIterativeDeepening(0);
+    calculator.setMaxSearchDepth(depth);
+    calculator.setThreadCount(threads);
+    calculator.setPlayer(new BenchmarkPlayer());
+  }
+
+  /**
+   * Removes the results of the previous search.
+   */
+  @Setup(Level.Invocation)
+  public void clearTable() {
+    calculator.getTranspositionTable().clear();
+  }
+
+  @Benchmark
+  public Move findBestMove() {
+    return calculator.findBestMove(game);
+  }
+}
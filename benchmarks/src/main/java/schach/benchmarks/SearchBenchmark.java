@@ -0,0 +1,59 @@
+package schach.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import schach.ai.GameEvaluator;
+import schach.ai.strategies.FixedAlphaBeta;
+import schach.game.moves.Move;
+import schach.game.state.GameState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a complete fixed depth alpha/beta search. No transposition table is
+ * used so that each invocation does the same amount of work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+  @Param({ "start", "kiwipete", "endgame", "middlegame" })
+  private String position;
+
+  @Param({ "3" })
+  private int depth;
+
+  private GameState game;
+  private FixedAlphaBeta search;
+
+  /**
+   * Sets up the search for the active color of the game state.
+   */
+  @Setup
+  public void setUp() {
+    game = BenchmarkPositions.create(position);
+    GameEvaluator evaluator = new GameEvaluator();
+    evaluator.setAiColor(game.getActiveColor());
+    search = new FixedAlphaBeta(depth);
+    search.setEvaluator(evaluator);
+    search.setPlayer(new BenchmarkPlayer());
+  }
+
+  @Benchmark
+  public Move findBestMove() {
+    return search.findBestMove(game);
+  }
+}
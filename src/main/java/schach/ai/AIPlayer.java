@@ -35,12 +35,23 @@ public class AIPlayer extends ThreadedPlayer {
   }
 
   /**
-   * Constructs an ai player with the default search depth of 5.
+   * Constructs an ai player with the default search depth of 4.
    */
   public AIPlayer() {
     this(4);
   }
 
+  /**
+   * Constructs a computer player that searches as deep as it can within the
+   * given time for each move.
+   * 
+   * @param moveTime Time budget for each move in milliseconds
+   * @return New computer player with an iterative deepening search
+   */
+  public static AIPlayer withMoveTime(long moveTime) {
+    return new AIPlayer(MoveCalculator.withIterativeDeepening(moveTime));
+  }
+
   /**
    * The computer player do anything upon notification. There's nothing to notify
    * since move calculation is entirely dependent on the concrete game state.
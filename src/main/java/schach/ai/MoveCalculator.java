@@ -1,8 +1,10 @@
 package schach.ai;
 
 import schach.ai.strategies.FixedAlphaBeta;
+import schach.ai.strategies.IterativeDeepening;
 import schach.ai.strategies.SearchStrategy;
 import schach.ai.strategies.ShallowEvaluation;
+import schach.ai.strategies.TranspositionTable;
 import schach.game.moves.Move;
 import schach.game.state.GameState;
 import schach.interaction.ThreadedPlayer;
@@ -13,6 +15,12 @@ import schach.interaction.ThreadedPlayer;
  * calculators with certain strategy settings.
  */
 public class MoveCalculator {
+  /**
+   * Size of the transposition table in megabytes that the static factory methods
+   * set up for strategies that search deeper than one level.
+   */
+  public static final int DEFAULT_TABLE_SIZE = 16;
+
   private SearchStrategy strategy;
   private GameEvaluator evaluator;
 
@@ -48,6 +56,36 @@ public class MoveCalculator {
     strategy.setMaxDepth(maxDepth);
   }
 
+  /**
+   * Sets how many threads the search strategy uses. Strategies that can't search
+   * in parallel ignore this.
+   * 
+   * @param threadCount Number of threads to search with, at least 1
+   */
+  public void setThreadCount(int threadCount) {
+    strategy.setThreadCount(threadCount);
+  }
+
+  /**
+   * Sets up a new transposition table with the given size for the search
+   * strategy. The previous table and its contents are discarded.
+   * 
+   * @param megabytes Memory size of the table in megabytes, 0 disables the table
+   */
+  public void setTranspositionTableSize(int megabytes) {
+    strategy.setTranspositionTable(megabytes == 0 ? null : new TranspositionTable(megabytes));
+  }
+
+  /**
+   * Returns the transposition table of the search strategy. The counters of the
+   * table can be used for inspecting its effectiveness.
+   * 
+   * @return Transposition table in use, null if none is used
+   */
+  public TranspositionTable getTranspositionTable() {
+    return strategy.getTranspositionTable();
+  }
+
   /**
    * Calculates the best found move for the given game state with the chosen
    * search strategy.
@@ -78,6 +116,21 @@ public class MoveCalculator {
    * @return Move calculator with the fixed alpha/beta search strategy.
    */
   public static MoveCalculator withFixedAlphaBeta(int maxDepth) {
-    return new MoveCalculator(new FixedAlphaBeta(maxDepth));
+    MoveCalculator calculator = new MoveCalculator(new FixedAlphaBeta(maxDepth));
+    calculator.setTranspositionTableSize(DEFAULT_TABLE_SIZE);
+    return calculator;
+  }
+
+  /**
+   * Returns a new move calculator using the iterative deepening search strategy
+   * with a time budget for each move.
+   * 
+   * @param moveTime Time budget for each move in milliseconds
+   * @return Move calculator with the iterative deepening search strategy
+   */
+  public static MoveCalculator withIterativeDeepening(long moveTime) {
+    MoveCalculator calculator = new MoveCalculator(new IterativeDeepening(moveTime, 0));
+    calculator.setTranspositionTableSize(DEFAULT_TABLE_SIZE);
+    return calculator;
   }
 }
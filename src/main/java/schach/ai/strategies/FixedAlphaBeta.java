@@ -1,7 +1,14 @@
 package schach.ai.strategies;
 
-import schach.game.accumulators.SearchAccumulator;
+import java.util.Arrays;
+
+import schach.ai.GameEvaluator;
+import schach.game.accumulators.MoveListAccumulator;
+import schach.game.accumulators.filters.LosingMoveFilter;
 import schach.game.moves.Move;
+import schach.game.moves.MoveEncoding;
+import schach.game.moves.MoveList;
+import schach.game.pieces.PieceType;
 import schach.game.state.GameState;
 
 /**
@@ -9,8 +16,69 @@ import schach.game.state.GameState;
  * branches (as long as they're not cut off by pruning) until the given
  * maxDepth. Throws if maxDepth is not set (is 0). Setting max-depth to 1 will
  * cause it to choose the best move using only the evaluator and no branches.
+ *
+ * The game states at the maximum depth are not evaluated directly but with a
+ * quiescence search that only follows captures and promotions until the
+ * position is quiet. This prevents misjudging a position in the middle of an
+ * exchange of pieces.
  */
 public class FixedAlphaBeta extends SearchStrategy {
+  /**
+   * How many game states were visited by the last search.
+   */
+  private long nodeCount;
+
+  /**
+   * How many game states were visited by the quiescence search in the last
+   * search.
+   */
+  private long quiescenceNodeCount;
+
+  /**
+   * How many game states were scored as a draw by repetition in the last
+   * search. Such a value depends on the moves that lead to the game state and
+   * not only on the game state itself. Values of game states whose search ran
+   * into a repetition aren't stored in the transposition table since the same
+   * game state can be reached without the repetition.
+   */
+  private long repetitionCount;
+
+  /**
+   * If the quiescence search is used at the maximum depth.
+   */
+  private boolean quiescence = true;
+
+  /**
+   * Orders the moves of each searched game state using what was learned in the
+   * search so far.
+   */
+  private final MoveOrdering ordering = new MoveOrdering();
+
+  /**
+   * The reused state of each depth of the search. It's extended when the search
+   * goes deeper than before.
+   */
+  private PlyState[] plyStates = new PlyState[0];
+
+  /**
+   * The searches of the threads other than the calling thread when the first
+   * level is searched in parallel. Each has its own reusable state. They're kept
+   * between searches so that it isn't allocated again.
+   */
+  private FixedAlphaBeta[] taskSearches = new FixedAlphaBeta[0];
+
+  /**
+   * Receives the entries read from the transposition table.
+   */
+  private final TranspositionTable.Entry tableEntry = new TranspositionTable.Entry();
+
+  /**
+   * How many pawns of value a capture in the quiescence search may gain in
+   * addition to the captured piece before it's skipped by delta pruning. This
+   * covers the positional gains of the capture.
+   */
+  private static final int DELTA_MARGIN_PAWNS = 2;
+
   /**
    * Constructs a alpha/beta search strategy with the given maximum search depth
    * 
@@ -33,88 +101,376 @@ public class FixedAlphaBeta extends SearchStrategy {
    */
   @Override
   public Move findBestMove(GameState game) {
-    return maximizeFirstLevel(game, this::minMax);
+    startSearch();
+    return searchToMaxDepth(game);
   }
 
   /**
-   * Is used for searching for moves until branch pruning happens. We don't just
-   * look for all legal moves since we can be faster if we only look for legal
-   * moves until we stop because of pruning.
+   * Resets the node counter and move ordering and notifies the transposition
+   * table before a new search starts.
    */
-  private class MinMaxAccumulator extends SearchAccumulator {
-    private final GameState game;
-    private final int depth;
-    private final boolean maximizing;
+  void startSearch() {
+    clearSearchState();
+    if (table != null) {
+      table.newSearch();
+    }
+  }
 
-    private double alpha;
-    private double beta;
-    private double bestValue;
+  /**
+   * Resets the node counters and the move ordering. This doesn't notify the
+   * transposition table so that it can be used by searches that join a search
+   * that has already started.
+   */
+  void clearSearchState() {
+    nodeCount = 0;
+    quiescenceNodeCount = 0;
+    repetitionCount = 0;
+    ordering.clear();
+  }
 
-    /**
-     * Creates a new min max accumulator with the given search parameters. This will
-     * accept moves until the branch is cut off.
-     * 
-     * @param alpha Alpha value for pruning
-     * @param beta  Beta value for pruning
-     * @param game  Game state to search
-     * @param depth Current search depth, the root node is 0
-     */
-    public MinMaxAccumulator(double alpha, double beta, GameState game, int depth) {
-      this.alpha = alpha;
-      this.beta = beta;
-      this.game = game;
-      this.depth = depth;
+  /**
+   * Searches the game state up to the currently set maximum depth.
+   * 
+   * @param game Game state to search
+   * @return Best found move, null if the search was aborted
+   */
+  Move searchToMaxDepth(GameState game) {
+    Move bestMove = maximizeFirstLevel(game, this::getTaskSearch);
 
-      // we start with depth 1 (the root is depth 0) so that we minimize on the first
-      // minMax step (the first minMax step is for the opponent minimizing our value)
-      maximizing = depth % 2 == 0;
-      bestValue = maximizing ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    // count the nodes the other threads visited as part of this search
+    for (FixedAlphaBeta taskSearch : taskSearches) {
+      if (taskSearch != null) {
+        nodeCount += taskSearch.nodeCount;
+        quiescenceNodeCount += taskSearch.quiescenceNodeCount;
+        taskSearch.clearSearchState();
+      }
     }
+    return bestMove;
+  }
 
-    public double getBestValue() {
-      return bestValue;
+  /**
+   * Returns the root search of the task with the given index. The first task uses
+   * this search while the others get a search with the same settings.
+   * 
+   * @param task Index of the task
+   * @return Root search for the task
+   */
+  private RootSearch getTaskSearch(int task) {
+    if (task == 0) {
+      return this::searchRoot;
+    }
+    if (task > taskSearches.length) {
+      taskSearches = Arrays.copyOf(taskSearches, task);
+    }
+    if (taskSearches[task - 1] == null) {
+      taskSearches[task - 1] = new FixedAlphaBeta(maxDepth);
     }
+    FixedAlphaBeta taskSearch = taskSearches[task - 1];
+    taskSearch.maxDepth = maxDepth;
+    taskSearch.quiescence = quiescence;
+    taskSearch.setEvaluator(evaluator);
+    taskSearch.setPlayer(player);
+    taskSearch.setTranspositionTable(table);
+    return taskSearch::searchRoot;
+  }
 
-    @Override
-    public boolean generateNonAttacking() {
-      return true;
+  /**
+   * Returns how many game states were visited in the last search. This includes
+   * the game states whose value was taken from the transposition table but not
+   * the game states visited by the quiescence search.
+   * 
+   * @return Number of visited game states
+   */
+  public long getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Returns how many game states were visited by the quiescence search in the
+   * last search. This includes the game states at the maximum depth where the
+   * quiescence search starts.
+   * 
+   * @return Number of game states visited by the quiescence search
+   */
+  public long getQuiescenceNodeCount() {
+    return quiescenceNodeCount;
+  }
+
+  /**
+   * Sets if the quiescence search is used. If disabled, the game states at the
+   * maximum depth are evaluated directly.
+   * 
+   * @param quiescence If the quiescence search should be used
+   */
+  public void setQuiescence(boolean quiescence) {
+    this.quiescence = quiescence;
+  }
+
+  /**
+   * Converts a value from the perspective of the ai color to the perspective of
+   * the active color as it's stored in the transposition table. Checkmate values
+   * are stored with their distance from the stored game state instead of the
+   * start of the search so that they stay correct when the game state is reached
+   * at a different depth.
+   * 
+   * @param value      Value to convert
+   * @param maximizing If the ai color is the active color
+   * @param depth      Depth of the game state
+   * @return Value to store
+   */
+  private static int toTableValue(int value, boolean maximizing, int depth) {
+    if (GameEvaluator.isMateValue(value)) {
+      value += value > 0 ? depth : -depth;
+    }
+    return maximizing ? value : -value;
+  }
+
+  /**
+   * Converts a value stored in the transposition table back to the perspective
+   * of the ai color. This is the inverse of toTableValue.
+   * 
+   * @param value      Stored value
+   * @param maximizing If the ai color is the active color
+   * @param depth      Depth of the game state
+   * @return Value from the perspective of the ai color
+   */
+  private static int fromTableValue(int value, boolean maximizing, int depth) {
+    if (GameEvaluator.isMateValue(value)) {
+      value -= value > 0 ? depth : -depth;
+    }
+    return maximizing ? value : -value;
+  }
+
+  /**
+   * Converts the bound type between the perspective of the ai color and the
+   * active color. Negating a value turns a lower bound into an upper bound and
+   * vice versa.
+   * 
+   * @param bound      Bound type to convert
+   * @param maximizing If the ai color is the active color
+   * @return Converted bound type
+   */
+  private static byte convertTableBound(byte bound, boolean maximizing) {
+    if (maximizing || bound == TranspositionTable.EXACT) {
+      return bound;
     }
+    return bound == TranspositionTable.LOWER_BOUND ? TranspositionTable.UPPER_BOUND : TranspositionTable.LOWER_BOUND;
+  }
+
+  /**
+   * Holds the reusable move list and helpers of one depth of the search so that
+   * searching a game state doesn't allocate them anew.
+   */
+  private static class PlyState {
+    final MoveList moves = new MoveList();
+    final MoveListAccumulator allMoves = new MoveListAccumulator(moves, true);
+    final MoveListAccumulator capturingMoves = new MoveListAccumulator(moves, false);
+    final LosingMoveFilter legality = new LosingMoveFilter();
 
     /**
-     * "checks" a move by inspecting it in the tree further. Returns true if a cut
-     * off happens.
+     * Key of the best move found by the last search of the moves at this depth.
      */
-    @Override
-    public boolean checkMove(Move move) {
-      double moveValue = game.runWithMove(move, () -> minMax(alpha, beta, game, depth + 1));
+    int bestMoveKey;
 
+    /**
+     * If the last search of the moves at this depth found a legal move. If it
+     * didn't and all moves were generated, the game state is a checkmate or a
+     * stalemate.
+     */
+    boolean legalMoveFound;
+  }
+
+  /**
+   * Returns the state of the given depth and creates it if it doesn't exist yet.
+   * 
+   * @param depth Depth to get the state for
+   * @return State of the depth
+   */
+  private PlyState getPlyState(int depth) {
+    if (depth >= plyStates.length) {
+      plyStates = Arrays.copyOf(plyStates, Math.max(depth + 1, plyStates.length * 2));
+    }
+    if (plyStates[depth] == null) {
+      plyStates[depth] = new PlyState();
+    }
+    return plyStates[depth];
+  }
+
+  /**
+   * Searches the moves that have been generated into the move list of the given
+   * depth. The moves are tried best first and their legality is only checked
+   * when they're tried so that moves cut off by pruning are never checked.
+   * 
+   * In the quiescence search, the initial value is the stand-pat value. Captures
+   * that can't bring the value up to the bound of the search window even with a
+   * safety margin are skipped then. (delta pruning) This isn't done when the
+   * active king is in check since all moves are searched then.
+   * 
+   * The legality filter of the depth needs to have been set to the game state.
+   * 
+   * @param alpha        Alpha value for pruning
+   * @param beta         Beta value for pruning
+   * @param game         Game state to search
+   * @param depth        Current search depth, the root node is 0
+   * @param initialValue Value of the game state if no move is better
+   * @param quiescent    If the moves are searched by the quiescence search
+   * @return Value of the best move or the initial value
+   */
+  private int searchMoves(int alpha, int beta, GameState game, int depth, int initialValue,
+      boolean quiescent) {
+    PlyState plyState = plyStates[depth];
+    MoveList moves = plyState.moves;
+    boolean maximizing = depth % 2 == 0;
+    boolean deltaPruning = quiescent && !plyState.legality.isInCheck();
+    int bestValue = initialValue;
+    int bestMoveKey = 0;
+    plyState.legalMoveFound = false;
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.selectBest(i);
+      if (deltaPruning && isDeltaPruned(move, alpha, beta, maximizing, initialValue)
+          || !plyState.legality.isLegal(move)) {
+        continue;
+      }
+      plyState.legalMoveFound = true;
+
+      game.applyEncodedMove(move);
+      int moveValue = quiescent ? quiesce(alpha, beta, game, depth + 1) : minMax(alpha, beta, game, depth + 1);
+      game.reverseEncodedMove(move);
+
+      if (maximizing ? moveValue > bestValue : moveValue < bestValue) {
+        bestValue = moveValue;
+        bestMoveKey = MoveEncoding.getKey(move);
+      }
       if (maximizing) {
-        bestValue = Math.max(bestValue, moveValue);
         alpha = Math.max(alpha, bestValue);
       } else {
-        bestValue = Math.min(bestValue, moveValue);
         beta = Math.min(beta, bestValue);
       }
 
-      // return true to cut off when the alpha/beta condition is reached
-      return alpha >= beta;
+      // stop when the alpha/beta condition is reached
+      if (alpha >= beta) {
+        ordering.recordCutoff(game, move, depth, maxDepth - depth);
+        break;
+      }
+    }
+    plyState.bestMoveKey = bestMoveKey;
+    return bestValue;
+  }
+
+  /**
+   * Checks if a move in the quiescence search can't gain enough material to
+   * reach the search window.
+   * 
+   * @param move       Encoded move to check
+   * @param alpha      Alpha value for pruning
+   * @param beta       Beta value for pruning
+   * @param maximizing If the ai color is the active color
+   * @param standPat   Value of the game state without making a move
+   * @return If the move should be skipped
+   */
+  private boolean isDeltaPruned(int move, int alpha, int beta, boolean maximizing, int standPat) {
+    PieceType captured = MoveEncoding.getCapturedType(move);
+    int gain = captured == null ? 0 : evaluator.getPieceValue(captured);
+    PieceType promoted = MoveEncoding.getMoveType(move).getPromotionPieceType();
+    if (promoted != null) {
+      gain += evaluator.getPieceValue(promoted) - evaluator.getPieceValue(PieceType.PAWN);
+    }
+    int margin = evaluator.getPieceValue(PieceType.PAWN) * DELTA_MARGIN_PAWNS;
+    return maximizing ? standPat + gain + margin <= alpha : standPat - gain - margin >= beta;
+  }
+
+  /**
+   * Searches the game state with the quiescence search. The stand-pat value may
+   * already cause a cut off. Otherwise the captures and promotions are searched
+   * until there are none left.
+   * 
+   * If the active king is in check, standing pat isn't possible and all moves
+   * are searched instead. Checkmates are detected this way without computing
+   * the game status. Stalemates aren't detected by the quiescence search.
+   * 
+   * @param alpha Alpha value for pruning, best value for this player
+   * @param beta  Beta value for pruning, best value for the opponent
+   * @param game  Game state to search
+   * @param depth Current search depth, the root node is 0
+   * @return Value of the game state after the exchanges of pieces
+   */
+  private int quiesce(int alpha, int beta, GameState game, int depth) {
+    if (isAborted()) {
+      return depth % 2 == 0 ? -GameEvaluator.INFINITE_VALUE : GameEvaluator.INFINITE_VALUE;
+    }
+    quiescenceNodeCount++;
+    if (isSearchDraw(game)) {
+      return 0;
+    }
+
+    // search all moves to find a way out of check
+    boolean maximizing = depth % 2 == 0;
+    PlyState plyState = getPlyState(depth);
+    plyState.moves.clear();
+    plyState.legality.setGameState(game);
+    if (plyState.legality.isInCheck()) {
+      game.accumulateAllMoves(plyState.allMoves);
+      ordering.scoreMoves(game, plyState.moves, depth, 0);
+      int bestValue = searchMoves(alpha, beta, game, depth,
+          maximizing ? -GameEvaluator.INFINITE_VALUE : GameEvaluator.INFINITE_VALUE, true);
+      return plyState.legalMoveFound ? bestValue : evaluator.calculateMateValue(game, depth);
+    }
+
+    // stand pat if the value is already outside of the search window
+    int standPat = evaluator.calculatePieceValue(game);
+    if (maximizing) {
+      if (standPat >= beta) {
+        return standPat;
+      }
+      alpha = Math.max(alpha, standPat);
+    } else {
+      if (standPat <= alpha) {
+        return standPat;
+      }
+      beta = Math.min(beta, standPat);
+    }
+
+    // search the captures with the most valuable victims first
+    game.accumulateAllMoves(plyState.capturingMoves);
+    ordering.scoreMoves(game, plyState.moves, depth, 0);
+    return searchMoves(alpha, beta, game, depth, standPat, true);
+  }
+
+  /**
+   * Checks if a game state is scored as a draw by the search. A repeated game
+   * state is a draw since the side that profits from the repetition can repeat
+   * it again until it's a threefold repetition. The other draw rules apply
+   * directly. Repetitions are counted since they depend on the moves that lead
+   * to the game state.
+   * 
+   * @param game Game state to check
+   * @return If the value of the game state is a draw
+   */
+  private boolean isSearchDraw(GameState game) {
+    if (game.countRepetitions() > 0) {
+      repetitionCount++;
+      return true;
     }
+    return game.isRuleDraw();
   }
 
   /**
-   * Does the first step of the search and places default parameters
+   * Searches the game state after a move of the first level. The search window
+   * starts just below alpha so that moves as good as the best move so far still
+   * get an exact value.
    * 
-   * @param game Game state to search on
+   * @param game  Game state to search on
+   * @param alpha Highest value of the moves of the first level so far
    * @return Value of the game state reachable through optimal play
    */
-  private double minMax(GameState game) {
-    return minMax(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, game, 1);
+  private int searchRoot(GameState game, int alpha) {
+    return minMax(alpha - 1, GameEvaluator.INFINITE_VALUE, game, 1);
   }
 
   /**
    * Does a step in the search using a min/max search with alpha/beta pruning.
-   * Returns infinitely good values if the thread was aborted which causes the
-   * search to stop because of the alpha/beta cutoff.
+   * Returns values better than any evaluation if the thread was aborted which
+   * causes the search to stop because of the alpha/beta cutoff.
    * 
    * @param alpha Alpha value for pruning, best value for this player
    * @param beta  Beta value for pruning, best value for the opponent
@@ -122,22 +478,80 @@ public class FixedAlphaBeta extends SearchStrategy {
    * @param depth Current search depth, the root node is 0
    * @return Value of the game state reachable through optimal play
    */
-  private double minMax(double alpha, double beta, GameState game, int depth) {
+  private int minMax(int alpha, int beta, GameState game, int depth) {
     if (isAborted()) {
-      return depth % 2 == 0 ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+      return depth % 2 == 0 ? -GameEvaluator.INFINITE_VALUE : GameEvaluator.INFINITE_VALUE;
+    }
+
+    if (isSearchDraw(game)) {
+      return 0;
+    }
+
+    // continue with the quiescence search at the maximum depth
+    if (depth == maxDepth && quiescence) {
+      return quiesce(alpha, beta, game, depth);
     }
+    nodeCount++;
 
     // stop and calculate the concrete game state value
-    // if the maximum depth has been reached or the game is in a stopped state
-    // also stop on end game statuses
-    if (depth == maxDepth || game.getStatus().gameIsStopped()) {
-      return evaluator.calculateBoardValue(game);
+    // if the maximum depth has been reached
+    if (depth == maxDepth) {
+      return evaluator.calculateBoardValue(game, depth);
     }
 
-    // accumulate moves with a min max accumulator
-    // in order to stop after cut off happens
-    MinMaxAccumulator minMaxAccumulator = new MinMaxAccumulator(alpha, beta, game, depth);
-    game.accumulateAllLegalMoves(minMaxAccumulator);
-    return minMaxAccumulator.getBestValue();
+    // no line from here can end in a checkmate faster than one ply later, so
+    // the window can be narrowed to the values of such checkmates (mate
+    // distance pruning). This cuts off everything once a faster checkmate has
+    // been found elsewhere.
+    int mateBound = GameEvaluator.MATE_VALUE - depth - 1;
+    alpha = Math.max(alpha, -mateBound);
+    beta = Math.min(beta, mateBound);
+    if (alpha >= beta) {
+      return alpha;
+    }
+
+    // use the stored result if this game state has already been searched at least
+    // as deep and the stored value is exact or a bound that causes a cut off
+    boolean maximizing = depth % 2 == 0;
+    int remainingDepth = maxDepth - depth;
+    long hash = game.getHash();
+    int hashMoveKey = 0;
+    if (table != null && table.probe(hash, tableEntry)) {
+      hashMoveKey = tableEntry.getMove();
+      if (tableEntry.getDepth() >= remainingDepth) {
+        int value = fromTableValue(tableEntry.getValue(), maximizing, depth);
+        byte bound = convertTableBound(tableEntry.getBound(), maximizing);
+        if (bound == TranspositionTable.EXACT || bound == TranspositionTable.LOWER_BOUND && value >= beta
+            || bound == TranspositionTable.UPPER_BOUND && value <= alpha) {
+          return value;
+        }
+      }
+    }
+
+    // generate the moves into the reused list of this depth and order them
+    long repetitionsBefore = repetitionCount;
+    PlyState plyState = getPlyState(depth);
+    plyState.moves.clear();
+    plyState.legality.setGameState(game);
+    game.accumulateAllMoves(plyState.allMoves);
+    ordering.scoreMoves(game, plyState.moves, depth, hashMoveKey);
+    int bestValue = searchMoves(alpha, beta, game, depth,
+        maximizing ? -GameEvaluator.INFINITE_VALUE : GameEvaluator.INFINITE_VALUE, false);
+
+    // without a legal move the game state is a checkmate or a stalemate, this
+    // replaces computing the game status before generating the moves
+    if (!plyState.legalMoveFound) {
+      return plyState.legality.isInCheck() ? evaluator.calculateMateValue(game, depth) : 0;
+    }
+
+    // store the result unless it's been falsified by aborting the search or it
+    // depends on a repetition in the moves leading to this game state
+    if (table != null && !isAborted() && repetitionCount == repetitionsBefore) {
+      byte bound = bestValue <= alpha ? TranspositionTable.UPPER_BOUND
+          : bestValue >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+      table.store(hash, remainingDepth, toTableValue(bestValue, maximizing, depth),
+          convertTableBound(bound, maximizing), plyState.bestMoveKey);
+    }
+    return bestValue;
   }
 }
@@ -0,0 +1,253 @@
+package schach.ai.strategies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import schach.common.NamedThreadFactory;
+import schach.game.moves.Move;
+import schach.game.state.GameState;
+
+/**
+ * Implements the move search as a series of alpha/beta searches with increasing
+ * depth. The first search has depth 1, the next depth 2 and so on until the
+ * time or node budget runs out. The move found by the last completed search is
+ * returned. This makes the time a move takes predictable while still searching
+ * as deep as the game state allows. Searches of earlier iterations fill the
+ * transposition table which speeds up the following iterations.
+ *
+ * With more than one thread, helper searches run on copies of the game state
+ * in parallel to the main search (lazy SMP). They share the transposition
+ * table with the main search and have no other way of communicating. Since
+ * the helpers search the same tree in a slightly different order and half of
+ * them start one depth deeper, they fill the table with results the main
+ * search can use. The helpers are stopped when the main search is done and
+ * only the move of the main search is returned.
+ */
+public class IterativeDeepening extends FixedAlphaBeta {
+  /**
+   * The depth at which iterations stop if the budget hasn't run out yet.
+   */
+  public static final int DEFAULT_DEPTH_LIMIT = 32;
+
+  /**
+   * Runs the helper searches of all iterative deepening searches.
+   */
+  private static ExecutorService helperService = Executors.newCachedThreadPool(new NamedThreadFactory("Search-PT"));
+
+  /**
+   * Time budget for finding a move in nanoseconds, 0 if unlimited.
+   */
+  private final long moveTime;
+
+  /**
+   * Maximum number of nodes to search for finding a move, 0 if unlimited. The
+   * nodes of the quiescence search count too since in tactical game states most
+   * of the nodes are visited there.
+   */
+  private final long nodeBudget;
+
+  /**
+   * Depth of the last iteration that is started.
+   */
+  private int depthLimit = DEFAULT_DEPTH_LIMIT;
+
+  /**
+   * When the time budget of the current search runs out, in nanoseconds.
+   */
+  private long deadline;
+
+  /**
+   * Depth of the last completed iteration of the current search. The budget only
+   * causes an abort after the first iteration has completed so that there always
+   * is a move to return.
+   */
+  private int completedDepth;
+
+  /**
+   * The helper searches used when searching with multiple threads. They're kept
+   * between searches so that their reusable state isn't allocated again.
+   */
+  private IterativeDeepening[] helpers = new IterativeDeepening[0];
+
+  /**
+   * Set on helper searches to make them stop when the main search is done.
+   */
+  private volatile boolean stopped;
+
+  /**
+   * Constructs an iterative deepening search strategy with the given budgets. At
+   * least one of the budgets should be set since otherwise all iterations up to
+   * the depth limit are searched.
+   * 
+   * @param moveTime   Time budget for a move in milliseconds, 0 for unlimited
+   * @param nodeBudget Maximum number of nodes for a move, 0 for unlimited
+   */
+  public IterativeDeepening(long moveTime, long nodeBudget) {
+    super(1);
+    this.moveTime = moveTime * 1_000_000;
+    this.nodeBudget = nodeBudget;
+  }
+
+  /**
+   * Sets the depth of the last iteration instead of the depth of a single search.
+   */
+  @Override
+  public void setMaxDepth(int maxDepth) {
+    if (maxDepth <= 0) {
+      throw new IllegalArgumentException("The depth limit of the iterative deepening search has to be positive.");
+    }
+    depthLimit = maxDepth;
+  }
+
+  /**
+   * Returns the depth of the last completed iteration of the last search.
+   * 
+   * @return Depth of the search the returned move was found with
+   */
+  public int getCompletedDepth() {
+    return completedDepth;
+  }
+
+  /**
+   * Checks if the time or node budget has run out.
+   * 
+   * @return True if the search should stop
+   */
+  private boolean budgetExhausted() {
+    return moveTime > 0 && System.nanoTime() >= deadline
+        || nodeBudget > 0 && getNodeCount() + getQuiescenceNodeCount() >= nodeBudget;
+  }
+
+  /**
+   * The threads are used for the helper searches instead of searching the first
+   * level in parallel.
+   */
+  @Override
+  int getRootThreadCount() {
+    return 1;
+  }
+
+  /**
+   * In addition to the player aborting the search, the search is also aborted
+   * when the budget runs out after the first iteration.
+   */
+  @Override
+  boolean isAborted() {
+    return stopped || super.isAborted() || completedDepth > 0 && budgetExhausted();
+  }
+
+  /**
+   * Searches with increasing depth until the budget runs out or the depth limit
+   * is reached. A new iteration isn't started if more than half of the time
+   * budget has been used already since it would most likely not complete.
+   */
+  @Override
+  public Move findBestMove(GameState game) {
+    long startTime = System.nanoTime();
+    deadline = startTime + moveTime;
+    completedDepth = 0;
+    startSearch();
+
+    List<Future<?>> helperFutures = startHelpers(game);
+    Move bestMove;
+    try {
+      bestMove = searchIterations(game, 1, startTime);
+    } finally {
+      stopHelpers(helperFutures);
+    }
+
+    // the player aborting invalidates all results
+    return super.isAborted() ? null : bestMove;
+  }
+
+  /**
+   * Runs the iterations of the search starting at the given depth.
+   * 
+   * @param game       Game state to search
+   * @param startDepth Depth of the first iteration
+   * @param startTime  When the search started in nanoseconds
+   * @return Move found by the last completed iteration, null if none completed
+   */
+  private Move searchIterations(GameState game, int startDepth, long startTime) {
+    Move bestMove = null;
+    for (int depth = startDepth; depth <= depthLimit; depth++) {
+      maxDepth = depth;
+      Move iterationMove = searchToMaxDepth(game);
+
+      // stop if this iteration was aborted and use the result of the last one
+      if (iterationMove == null) {
+        break;
+      }
+      bestMove = iterationMove;
+      completedDepth = depth;
+      if (budgetExhausted() || moveTime > 0 && System.nanoTime() - startTime > moveTime / 2) {
+        break;
+      }
+    }
+    return bestMove;
+  }
+
+  /**
+   * Starts the helper searches on copies of the given game state if more than
+   * one thread should be used. The helpers are set up with the settings of this
+   * search but without a budget since they're stopped by the main search.
+   * 
+   * @param game Game state to search
+   * @return Futures of the started helpers
+   */
+  private List<Future<?>> startHelpers(GameState game) {
+    List<Future<?>> futures = new ArrayList<>();
+    if (threadCount > 1 && helpers.length != threadCount - 1) {
+      helpers = Arrays.copyOf(helpers, threadCount - 1);
+    }
+    for (int i = 0; i < threadCount - 1; i++) {
+      if (helpers[i] == null) {
+        helpers[i] = new IterativeDeepening(0, 0);
+      }
+      IterativeDeepening helper = helpers[i];
+      helper.setEvaluator(evaluator);
+      helper.setPlayer(player);
+      helper.setTranspositionTable(table);
+      helper.depthLimit = depthLimit;
+      helper.stopped = false;
+
+      // every second helper starts one depth deeper to search different parts of
+      // the tree first
+      int startDepth = 1 + (i + 1) % 2;
+      GameState helperGame = game.copy();
+      futures.add(helperService.submit(() -> {
+        helper.clearSearchState();
+        helper.completedDepth = 0;
+        helper.searchIterations(helperGame, startDepth, System.nanoTime());
+      }));
+    }
+    return futures;
+  }
+
+  /**
+   * Stops the helper searches and waits for them to finish so that they don't
+   * write to the transposition table during the next search.
+   * 
+   * @param futures Futures of the running helpers
+   */
+  private void stopHelpers(List<Future<?>> futures) {
+    for (IterativeDeepening helper : helpers) {
+      helper.stopped = true;
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        e.printStackTrace();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package schach.ai.strategies;
+
+import java.util.Arrays;
+
+import schach.common.Color;
+import schach.common.Constants;
+import schach.game.moves.MoveEncoding;
+import schach.game.moves.MoveList;
+import schach.game.pieces.PieceType;
+import schach.game.state.GameState;
+
+/**
+ * Keeps the information the search gathers about good moves and uses it to
+ * order the moves of each searched game state. Searching the best move first
+ * makes alpha/beta pruning cut off much more of the tree. Moves are tried in
+ * stages:
+ *
+ * 1. The hash move: the best move stored in the transposition table
+ *
+ * 2. Captures and promotions ordered by most valuable victim, then least
+ * valuable attacker (MVV-LVA)
+ *
+ * 3. Killer moves: quiet moves that caused a cut off in another game state at
+ * the same depth
+ *
+ * 4. All other quiet moves ordered by the history heuristic: how often and how
+ * deep they caused cut offs in the whole search
+ */
+class MoveOrdering {
+  /**
+   * The maximum search depth for which killer moves are stored.
+   */
+  static final int MAX_PLY = 64;
+
+  /**
+   * How many killer moves are kept for each depth.
+   */
+  private static final int KILLER_AMOUNT = 2;
+
+  /**
+   * Base scores of the stages. The history scores of quiet moves are kept below
+   * the killer score.
+   */
+  private static final int HASH_MOVE_SCORE = 1 << 30;
+  private static final int CAPTURE_SCORE = 1 << 29;
+  private static final int KILLER_SCORE = 1 << 28;
+
+  /**
+   * History scores are halved when they reach this value so they stay below the
+   * killer score.
+   */
+  private static final int HISTORY_LIMIT = 1 << 24;
+
+  private final int[][] killers = new int[MAX_PLY][KILLER_AMOUNT];
+
+  /**
+   * History scores by color and origin and target board index of the move.
+   */
+  private final int[][] history = new int[Color.AMOUNT][Constants.SQUARE_AMOUNT * Constants.SQUARE_AMOUNT];
+
+  /**
+   * Clears the gathered information. This is done before each new search since
+   * the killer moves and history of other game states would be misleading.
+   */
+  void clear() {
+    for (int[] plyKillers : killers) {
+      Arrays.fill(plyKillers, 0);
+    }
+    for (int[] colorHistory : history) {
+      Arrays.fill(colorHistory, 0);
+    }
+  }
+
+  /**
+   * Returns the ordering value of a piece type for MVV-LVA. The king is the most
+   * valuable piece since capturing it ends the game.
+   *
+   * @param type Piece type to get the value of
+   * @return Ordering value of the piece type
+   */
+  private static int getTypeValue(PieceType type) {
+    return PieceType.amount - type.ordinal();
+  }
+
+  /**
+   * Returns the index of a move in the history table.
+   *
+   * @param move Encoded move to get the index of
+   * @return History table index of the move
+   */
+  private static int getHistoryIndex(int move) {
+    return MoveEncoding.getOrigin(move) * Constants.SQUARE_AMOUNT + MoveEncoding.getTarget(move);
+  }
+
+  /**
+   * Scores a move according to the ordering stages.
+   *
+   * @param game        Game state the move is made in
+   * @param move        Encoded move to score
+   * @param ply         Search depth of the game state
+   * @param hashMoveKey Key of the hash move, 0 if there is none
+   * @return Ordering score of the move
+   */
+  int scoreMove(GameState game, int move, int ply, int hashMoveKey) {
+    int key = MoveEncoding.getKey(move);
+    if (key == hashMoveKey) {
+      return HASH_MOVE_SCORE;
+    }
+
+    // order captures by victim first and attacker second
+    // promotions are like capturing the promoted piece with a pawn
+    PieceType victim = MoveEncoding.getCapturedType(move);
+    PieceType promoted = MoveEncoding.getMoveType(move).getPromotionPieceType();
+    if (victim != null || promoted != null) {
+      int score = CAPTURE_SCORE;
+      if (victim != null) {
+        score += getTypeValue(victim) * PieceType.amount * 2;
+      }
+      if (promoted != null) {
+        score += getTypeValue(promoted) * PieceType.amount;
+      }
+      return score - getTypeValue(game.getBoard().getPieceAt(MoveEncoding.getOrigin(move)).getType());
+    }
+
+    if (ply < MAX_PLY) {
+      int[] plyKillers = killers[ply];
+      for (int i = 0; i < KILLER_AMOUNT; i++) {
+        if (plyKillers[i] == key) {
+          return KILLER_SCORE - i;
+        }
+      }
+    }
+    return history[game.getActiveColor().getIndex()][getHistoryIndex(move)];
+  }
+
+  /**
+   * Scores all moves in the given list so that they can be selected best first.
+   *
+   * @param game        Game state whose moves are ordered
+   * @param moves       List of the encoded moves of the game state
+   * @param ply         Search depth of the game state
+   * @param hashMoveKey Key of the hash move, 0 if there is none
+   */
+  void scoreMoves(GameState game, MoveList moves, int ply, int hashMoveKey) {
+    for (int i = 0; i < moves.size(); i++) {
+      moves.setScore(i, scoreMove(game, moves.get(i), ply, hashMoveKey));
+    }
+  }
+
+  /**
+   * Records that the given move caused a cut off. Quiet moves become killer moves
+   * at this depth and their history score increases by more the more of the tree
+   * was cut off.
+   *
+   * @param game           Game state the move was made in
+   * @param move           Encoded move that caused the cut off
+   * @param ply            Search depth of the game state
+   * @param remainingDepth How many more steps the search would have gone
+   */
+  void recordCutoff(GameState game, int move, int ply, int remainingDepth) {
+    if (!MoveEncoding.isQuiet(move)) {
+      return;
+    }
+
+    // keep the most recent killer moves first
+    int key = MoveEncoding.getKey(move);
+    if (ply < MAX_PLY) {
+      int[] plyKillers = killers[ply];
+      if (plyKillers[0] != key) {
+        System.arraycopy(plyKillers, 0, plyKillers, 1, KILLER_AMOUNT - 1);
+        plyKillers[0] = key;
+      }
+    }
+
+    // age all history scores of the color when one of them gets too large
+    int[] colorHistory = history[game.getActiveColor().getIndex()];
+    int index = getHistoryIndex(move);
+    colorHistory[index] += remainingDepth * remainingDepth;
+    if (colorHistory[index] >= HISTORY_LIMIT) {
+      for (int i = 0; i < colorHistory.length; i++) {
+        colorHistory[i] /= 2;
+      }
+    }
+  }
+}
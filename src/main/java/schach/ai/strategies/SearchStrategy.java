@@ -1,8 +1,16 @@
 package schach.ai.strategies;
 
-import java.util.function.Function;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 import schach.ai.GameEvaluator;
+import schach.common.NamedThreadFactory;
 import schach.game.moves.Move;
 import schach.game.state.GameState;
 import schach.interaction.ThreadedPlayer;
@@ -21,7 +29,44 @@ public abstract class SearchStrategy {
   int maxDepth;
 
   GameEvaluator evaluator;
-  private ThreadedPlayer player;
+  ThreadedPlayer player;
+
+  /**
+   * Table of earlier search results. Strategies that don't search deeper than the
+   * first level ignore this. Null if no table should be used.
+   */
+  TranspositionTable table;
+
+  /**
+   * How many threads search in parallel. Unless a strategy overrides how it
+   * searches in parallel, the moves of the first level are distributed among
+   * the threads.
+   */
+  int threadCount = 1;
+
+  /**
+   * Runs the tasks that search the first level in parallel for all search
+   * strategies. Its threads are reused and end when they have been idle for a
+   * while, so strategies don't need to be shut down.
+   */
+  private static ExecutorService rootService = Executors.newCachedThreadPool(new NamedThreadFactory("Search-Root"));
+
+  /**
+   * Searches the game state after a move of the first level.
+   */
+  @FunctionalInterface
+  interface RootSearch {
+    /**
+     * Calculates the value of the game state after a move of the first level.
+     * The value only needs to be exact if it's at least as high as alpha since
+     * moves with a lower value are never chosen.
+     * 
+     * @param game  Game state after the move
+     * @param alpha Highest value of the moves of the first level searched so far
+     * @return Value of the game state
+     */
+    int search(GameState game, int alpha);
+  }
 
   /**
    * Constructs a new search strategy instance with the depth setting.
@@ -44,6 +89,26 @@ public abstract class SearchStrategy {
     this.player = player;
   }
 
+  public TranspositionTable getTranspositionTable() {
+    return table;
+  }
+
+  public void setTranspositionTable(TranspositionTable table) {
+    this.table = table;
+  }
+
+  /**
+   * Sets how many threads should search in parallel.
+   * 
+   * @param threadCount Number of threads, at least 1
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount <= 0) {
+      throw new IllegalArgumentException("The thread count has to be positive but was " + threadCount);
+    }
+    this.threadCount = threadCount;
+  }
+
   /**
    * Checks if the search has been aborted.
    * 
@@ -65,39 +130,102 @@ public abstract class SearchStrategy {
   public abstract Move findBestMove(GameState game);
 
   /**
-   * Does a simple search of the top-level legal moves and returns the move that
-   * the mapper produces the highest value for.
+   * Returns how many threads search the moves of the first level in parallel.
+   * Strategies that use their threads differently override this.
    * 
-   * @param game   Game to search in
-   * @param mapper Mapper that produces the value to choose moves with
-   * @return Move with the highest mapped value
+   * @return Number of threads for the first level
    */
-  Move maximizeFirstLevel(GameState game, Function<GameState, Double> mapper) {
-    Move bestMove = null;
-    double bestMoveValue = Double.NEGATIVE_INFINITY;
-
-    // find the best legal move
-    for (Move move : game.getAllLegalMoves()) {
-      if (isAborted()) {
-        return null;
-      }
+  int getRootThreadCount() {
+    return threadCount;
+  }
 
-      // if the value of this move is higher than the current best move,
-      // take it as the new best move
-      double value = game.runWithMove(move, () -> mapper.apply(game));
-      if (value >= bestMoveValue) {
-        bestMoveValue = value;
-        bestMove = move;
-      }
-    }
+  /**
+   * Does a simple search of the top-level legal moves and returns the move that
+   * the root search produces the highest value for. Of moves with the same value
+   * the last one is chosen.
+   * 
+   * With more than one thread for the first level, each thread takes the next
+   * move that hasn't been searched yet on its own copy of the game state. The
+   * highest value found so far is shared between the threads so that they can
+   * use it as alpha.
+   * 
+   * @param game     Game state to search in
+   * @param searches Gives the root search for each thread by its index. A
+   *                 sequential search only uses index 0.
+   * @return Move with the highest value, null if the search was aborted
+   */
+  Move maximizeFirstLevel(GameState game, IntFunction<RootSearch> searches) {
+    List<Move> moves = game.getAllLegalMoves();
 
     // if no move was found that means no move was valid
-    if (bestMove == null) {
+    if (moves.isEmpty()) {
       throw new IllegalStateException("No move could be found for search!");
     }
+
+    int[] values = new int[moves.size()];
+    int taskAmount = Math.min(getRootThreadCount(), moves.size());
+    if (taskAmount > 1) {
+      searchFirstLevelParallel(game, moves, values, taskAmount, searches);
+    } else {
+      RootSearch search = searches.apply(0);
+      int alpha = -GameEvaluator.INFINITE_VALUE;
+      for (int i = 0; i < values.length && !isAborted(); i++) {
+        int moveAlpha = alpha;
+        values[i] = game.runWithMove(moves.get(i), () -> search.search(game, moveAlpha));
+        alpha = Math.max(alpha, values[i]);
+      }
+    }
     if (isAborted()) {
       return null;
     }
-    return bestMove;
+
+    // take the last move with the highest value
+    int bestIndex = 0;
+    for (int i = 1; i < values.length; i++) {
+      if (values[i] >= values[bestIndex]) {
+        bestIndex = i;
+      }
+    }
+    return moves.get(bestIndex);
+  }
+
+  /**
+   * Searches the moves of the first level with multiple tasks in parallel. Each
+   * task works on its own copy of the game state.
+   * 
+   * @param game       Game state to search in
+   * @param moves      Legal moves of the game state
+   * @param values     Receives the value of each move
+   * @param taskAmount Number of tasks to start
+   * @param searches   Gives the root search for each task
+   */
+  private void searchFirstLevelParallel(GameState game, List<Move> moves, int[] values, int taskAmount,
+      IntFunction<RootSearch> searches) {
+    AtomicInteger nextIndex = new AtomicInteger();
+    AtomicInteger sharedAlpha = new AtomicInteger(-GameEvaluator.INFINITE_VALUE);
+    List<Future<?>> tasks = new ArrayList<>(taskAmount);
+    for (int task = 0; task < taskAmount; task++) {
+      RootSearch search = searches.apply(task);
+      GameState taskGame = game.copy();
+      tasks.add(rootService.submit(() -> {
+        for (int i = nextIndex.getAndIncrement(); i < values.length && !isAborted(); i = nextIndex.getAndIncrement()) {
+          int alpha = sharedAlpha.get();
+          values[i] = taskGame.runWithMove(moves.get(i), () -> search.search(taskGame, alpha));
+          sharedAlpha.accumulateAndGet(values[i], Math::max);
+        }
+      }));
+    }
+
+    // waiting for the tasks makes the values written by them visible
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Searching the first level failed.", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
   }
 }
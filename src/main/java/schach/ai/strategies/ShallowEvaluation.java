@@ -17,9 +17,10 @@ public class ShallowEvaluation extends SearchStrategy {
 
   /**
    * Simply look for the move with that produces the state with the highest value.
+   * The evaluator holds no state of the search so all threads share it.
    */
   @Override
   public Move findBestMove(GameState game) {
-    return maximizeFirstLevel(game, evaluator::calculateBoardValue);
+    return maximizeFirstLevel(game, task -> (state, alpha) -> evaluator.calculateBoardValue(state, 1));
   }
 }
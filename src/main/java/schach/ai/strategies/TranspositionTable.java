@@ -0,0 +1,310 @@
+package schach.ai.strategies;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed size hash table of search results keyed by the Zobrist hash of the
+ * searched game state. It allows the search to reuse the result of a game state
+ * that was already searched when it's reached again through a different order
+ * of moves.
+ *
+ * The entries are stored in preallocated primitive arrays so probing and
+ * storing never allocates. The table is divided into buckets of two slots. The
+ * first slot of a bucket is depth-preferred and only replaced by results of
+ * deeper (or equally deep) searches or results from a newer search. The second
+ * slot is always replaced by results that don't go into the first slot.
+ *
+ * Each entry also holds the key of the best move found in the game state so
+ * that the search can try it first when the game state is searched again.
+ *
+ * Values are stored from the perspective of the color that is active in the
+ * stored game state. This makes the entries independent of the color the
+ * search is done for.
+ *
+ * The table can be shared by searches running in parallel without locking. An
+ * entry is made up of two longs: the data including the value and the key
+ * combined with the data by xor. When an entry is read while another thread is
+ * writing it, the parts don't fit together and the key doesn't match. Such torn
+ * entries are treated like missing entries.
+ */
+public class TranspositionTable {
+  /**
+   * The stored value is the exact value of the game state.
+   */
+  public static final byte EXACT = 1;
+
+  /**
+   * The stored value is a lower bound of the value of the game state. (the search
+   * was cut off because the value was too high)
+   */
+  public static final byte LOWER_BOUND = 2;
+
+  /**
+   * The stored value is an upper bound of the value of the game state. (no move
+   * reached the lower end of the search window)
+   */
+  public static final byte UPPER_BOUND = 3;
+
+  /**
+   * Marks an empty slot.
+   */
+  private static final byte EMPTY = 0;
+
+  /**
+   * How many bytes a single entry takes up in the arrays. This is used to
+   * calculate the number of entries from the memory size.
+   */
+  private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+  /**
+   * How many slots each bucket has.
+   */
+  private static final int BUCKET_SIZE = 2;
+
+  /**
+   * Positions of the parts of an entry in the data long.
+   */
+  private static final int DEPTH_SHIFT = 16;
+  private static final int BOUND_SHIFT = 24;
+  private static final int GENERATION_SHIFT = 32;
+  private static final int VALUE_SHIFT = 40;
+  private static final int MOVE_MASK = 0xFFFF;
+  private static final int SHORT_MASK = 0xFFFF;
+  private static final int BYTE_MASK = 0xFF;
+
+  /**
+   * The keys of the entries combined with the data by xor.
+   */
+  private final long[] checkedKeys;
+
+  /**
+   * The move, depth, bound, generation and value of the entries packed into a
+   * long. The value is stored as a short since the values of the search fit
+   * into one.
+   */
+  private final long[] data;
+
+  /**
+   * Mask for the bucket index taken from the key. The number of buckets is a
+   * power of two.
+   */
+  private final int bucketMask;
+
+  /**
+   * Generation of the current search. Depth-preferred entries of older
+   * generations can be replaced regardless of their depth.
+   */
+  private volatile byte generation;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder collisions = new LongAdder();
+
+  /**
+   * Holds the data of an entry when it's read from the table. Each search keeps
+   * its own instance so that reading an entry doesn't allocate and the data
+   * can't change while it's used.
+   */
+  public static final class Entry {
+    private int value;
+    private int depth;
+    private byte bound;
+    private int move;
+
+    /**
+     * Returns the value of the stored game state.
+     *
+     * @return Value of the stored game state for the color active in it
+     */
+    public int getValue() {
+      return value;
+    }
+
+    /**
+     * Returns the remaining search depth the value was calculated with.
+     *
+     * @return Remaining search depth of the stored value
+     */
+    public int getDepth() {
+      return depth;
+    }
+
+    /**
+     * Returns what kind of bound the value is.
+     *
+     * @return One of EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public byte getBound() {
+      return bound;
+    }
+
+    /**
+     * Returns the key of the best move found in the game state.
+     *
+     * @return Key of the best move, 0 if no best move was stored
+     */
+    public int getMove() {
+      return move;
+    }
+  }
+
+  /**
+   * Constructs a new transposition table that uses about the given amount of
+   * memory. The number of buckets is rounded down to a power of two.
+   *
+   * @param megabytes Memory size of the table in megabytes
+   */
+  public TranspositionTable(int megabytes) {
+    if (megabytes <= 0) {
+      throw new IllegalArgumentException("The transposition table size has to be positive but was " + megabytes);
+    }
+
+    // determine the largest power of two number of buckets that fits in the size
+    long entryAmount = (long) megabytes * 1024 * 1024 / ENTRY_BYTES;
+    int bucketAmount = Integer.highestOneBit((int) Math.min(entryAmount / BUCKET_SIZE, 1 << 29));
+    bucketMask = bucketAmount - 1;
+
+    int slotAmount = bucketAmount * BUCKET_SIZE;
+    checkedKeys = new long[slotAmount];
+    data = new long[slotAmount];
+  }
+
+  /**
+   * Returns the number of slots in this table.
+   *
+   * @return How many entries this table can hold
+   */
+  public int getCapacity() {
+    return checkedKeys.length;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns how many probes missed while the bucket was occupied by entries of
+   * other game states. These are counted in addition to the misses.
+   *
+   * @return Number of probes that found only entries for other game states
+   */
+  public long getCollisions() {
+    return collisions.sum();
+  }
+
+  /**
+   * Resets the hit, miss and collision counters.
+   */
+  public void resetCounters() {
+    hits.reset();
+    misses.reset();
+    collisions.reset();
+  }
+
+  /**
+   * Removes all entries from the table and resets the counters. This must not be
+   * called while a search uses the table.
+   */
+  public void clear() {
+    Arrays.fill(checkedKeys, 0);
+    Arrays.fill(data, 0);
+    resetCounters();
+  }
+
+  /**
+   * Signals that a new search starts. Depth-preferred entries from previous
+   * searches may then be replaced by shallower results.
+   */
+  public void newSearch() {
+    generation++;
+  }
+
+  /**
+   * Returns the index of the first slot of the bucket for the given key.
+   *
+   * @param key Hash of the game state
+   * @return Index of the depth-preferred slot of the bucket
+   */
+  private int bucketSlot(long key) {
+    return ((int) (key ^ key >>> 32) & bucketMask) * BUCKET_SIZE;
+  }
+
+  /**
+   * Extracts the bound type from the data of an entry.
+   *
+   * @param entryData Data long of an entry
+   * @return Bound type of the entry, EMPTY if there is no entry
+   */
+  private static byte getBound(long entryData) {
+    return (byte) (entryData >>> BOUND_SHIFT & BYTE_MASK);
+  }
+
+  /**
+   * Looks for an entry for the given game state hash and copies its data into
+   * the given entry if there is one.
+   *
+   * @param key   Hash of the game state to look up
+   * @param entry Entry to copy the found data into
+   * @return If an entry for the key was found
+   */
+  public boolean probe(long key, Entry entry) {
+    int slot = bucketSlot(key);
+    boolean occupied = false;
+    for (int i = slot; i < slot + BUCKET_SIZE; i++) {
+      // read each part only once since other threads may change them
+      long entryData = data[i];
+      if (getBound(entryData) == EMPTY) {
+        continue;
+      }
+      if ((checkedKeys[i] ^ entryData) == key) {
+        entry.value = (short) (entryData >>> VALUE_SHIFT);
+        entry.move = (int) (entryData & MOVE_MASK);
+        entry.depth = (int) (entryData >>> DEPTH_SHIFT & BYTE_MASK);
+        entry.bound = getBound(entryData);
+        hits.increment();
+        return true;
+      }
+      occupied = true;
+    }
+
+    misses.increment();
+    if (occupied) {
+      collisions.increment();
+    }
+    return false;
+  }
+
+  /**
+   * Stores a search result in the table. The result goes into the
+   * depth-preferred slot if that slot is empty, holds the same game state, is
+   * from an older search or was searched less deep. Otherwise the always-replace
+   * slot is overwritten.
+   *
+   * @param key   Hash of the searched game state
+   * @param depth Remaining search depth the value was calculated with
+   * @param value Value of the game state for the color active in it, has to fit
+   *              into a short
+   * @param bound What kind of bound the value is
+   * @param move  Key of the best move found, 0 if there is none
+   */
+  public void store(long key, int depth, int value, byte bound, int move) {
+    byte currentGeneration = generation;
+    int slot = bucketSlot(key);
+    long slotData = data[slot];
+    if (getBound(slotData) != EMPTY && (checkedKeys[slot] ^ slotData) != key
+        && (byte) (slotData >>> GENERATION_SHIFT) == currentGeneration
+        && (slotData >>> DEPTH_SHIFT & BYTE_MASK) > depth) {
+      slot++;
+    }
+
+    long entryData = move & MOVE_MASK | (long) (depth & BYTE_MASK) << DEPTH_SHIFT | (long) bound << BOUND_SHIFT
+        | (long) (currentGeneration & BYTE_MASK) << GENERATION_SHIFT | (long) (value & SHORT_MASK) << VALUE_SHIFT;
+    checkedKeys[slot] = key ^ entryData;
+    data[slot] = entryData;
+  }
+}
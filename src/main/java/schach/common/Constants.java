@@ -9,6 +9,12 @@ public class Constants {
    */
   public static final int BOARD_SIZE = 8;
 
+  /**
+   * How many squares there are on the board. Board indexes range from 0 up to
+   * (excluding) this value.
+   */
+  public static final int SQUARE_AMOUNT = BOARD_SIZE * BOARD_SIZE;
+
   /**
    * The alphabet, this is used for command parsing and move display
    */
@@ -7,7 +7,26 @@ package schach.common;
  */
 public class Position extends Vector {
   /**
-   * Constructs a new Position from two coordinates.
+   * The shared instances of the positions on the board by board index. Move
+   * generation uses these instead of creating new positions so that positions
+   * of the same square are the same instance.
+   */
+  private static final Position[] SQUARES = new Position[Constants.SQUARE_AMOUNT];
+
+  /**
+   * The shared instance returned for all positions outside of the board.
+   */
+  public static final Position OFF_BOARD = new Position(-1, -1);
+
+  static {
+    for (int index = 0; index < SQUARES.length; index++) {
+      SQUARES[index] = new Position(index % Constants.BOARD_SIZE, index / Constants.BOARD_SIZE);
+    }
+  }
+
+  /**
+   * Constructs a new Position from two coordinates. Use Position.of instead
+   * where the coordinates of positions outside of the board aren't needed.
    * 
    * @param x X coordinate
    * @param y Y coordinate
@@ -17,26 +36,43 @@ public class Position extends Vector {
   }
 
   /**
-   * Constructs a new position using an origin position and an offset vector which
-   * is added to the origin to get the new position.
+   * Returns the shared position instance for the given coordinates. All
+   * positions outside of the board are the shared off board position.
+   * 
+   * @param x X coordinate
+   * @param y Y coordinate
+   * @return Shared position with the coordinates, OFF_BOARD if they're outside of
+   *         the board
+   */
+  public static Position of(int x, int y) {
+    if (x < 0 || y < 0 || x >= Constants.BOARD_SIZE || y >= Constants.BOARD_SIZE) {
+      return OFF_BOARD;
+    }
+    return SQUARES[getBoardIndex(x, y)];
+  }
+
+  /**
+   * Returns the position of an origin position and an offset vector which is
+   * added to the origin to get the new position. The shared position instance is
+   * returned, which is OFF_BOARD if the new position is outside of the board.
    * 
    * @param origin Origin position
    * @param offset Offset vector which is added to the position
-   * @return New offset position
+   * @return Shared offset position
    */
   public static Position fromOffset(Position origin, Vector offset) {
-    return new Position(origin.getX() + offset.getX(), origin.getY() + offset.getY());
+    return of(origin.getX() + offset.getX(), origin.getY() + offset.getY());
   }
 
   /**
-   * Does the reverse calculation of computeBoardIndex. Returns a position object
-   * for a given board index.
+   * Does the reverse calculation of computeBoardIndex. Returns the shared
+   * position instance for a given board index.
    * 
-   * @param index Board index to make a position from
+   * @param index Board index to get the position of
    * @return Position corresponding to the given board index
    */
   public static Position fromBoardIndex(int index) {
-    return new Position(index % Constants.BOARD_SIZE, index / Constants.BOARD_SIZE);
+    return SQUARES[index];
   }
 
   /**
@@ -15,6 +15,7 @@ import schach.consoleui.commands.PrintCapturedCommand;
 import schach.consoleui.commands.ConsoleCommand;
 import schach.consoleui.commands.ConsoleJournalCommand;
 import schach.consoleui.commands.MovementCommand;
+import schach.consoleui.commands.PerftCommand;
 import schach.consoleui.commands.PrintingCommand;
 
 /**
@@ -35,6 +36,11 @@ public class CommandInterface {
       .collect(Collectors.<Map.Entry<Character, MoveType>, MoveType, Character>toMap(Map.Entry::getValue,
           Map.Entry::getKey));
 
+  /**
+   * Prefix of the command that counts the move tree to the given depth.
+   */
+  private static final String PERFT_PREFIX = "perft ";
+
   private final Scanner scanner;
 
   /**
@@ -89,12 +95,33 @@ public class CommandInterface {
       case "redo":
         return ConsoleJournalCommand.REDO;
       default:
+        // count the move tree if a perft depth is given
+        if (input.startsWith(PERFT_PREFIX)) {
+          return parsePerft(input.substring(PERFT_PREFIX.length()));
+        }
+
         // otherwise try to parse a movement and validate the constructed move
         Movement movement = parseMovement(input);
         return movement == null ? PrintingCommand.INVALID_INPUT : new MovementCommand(movement, input);
     }
   }
 
+  /**
+   * Parses the depth of a perft command.
+   * 
+   * @param depthString Depth given after the perft command
+   * @return Perft command with the depth, the invalid input command if the depth
+   *         is not a positive number
+   */
+  private static ConsoleCommand parsePerft(String depthString) {
+    try {
+      int depth = Integer.parseInt(depthString.trim());
+      return depth > 0 ? new PerftCommand(depth) : PrintingCommand.INVALID_INPUT;
+    } catch (NumberFormatException e) {
+      return PrintingCommand.INVALID_INPUT;
+    }
+  }
+
   /**
    * Converts a char from the alphabet to an integer number, starting at 1.
    * 
@@ -0,0 +1,46 @@
+package schach.consoleui.commands;
+
+import java.util.Map;
+
+import schach.consoleui.CommandInterface;
+import schach.consoleui.ConsolePlayer;
+import schach.consoleui.ConsoleSession;
+import schach.game.moves.Move;
+import schach.interaction.commands.SessionCommand;
+
+/**
+ * Command that counts the leaf nodes of the move tree of the current game state
+ * (perft) and prints the counts for each move, the total and how many nodes
+ * were counted per second.
+ */
+public class PerftCommand implements ConsoleCommand {
+  private final int depth;
+
+  /**
+   * Creates a new perft command that counts to the given depth.
+   * 
+   * @param depth Depth of the move tree to count, at least 1
+   */
+  public PerftCommand(int depth) {
+    this.depth = depth;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  @Override
+  public SessionCommand applyToPlayer(ConsolePlayer player, ConsoleSession session) {
+    long startTime = System.nanoTime();
+    Map<Move, Long> counts = session.getGame().perftDivide(depth);
+    long duration = Math.max(System.nanoTime() - startTime, 1);
+
+    long total = 0;
+    for (Map.Entry<Move, Long> entry : counts.entrySet()) {
+      player.printMessage(CommandInterface.moveToCommandString(entry.getKey()) + ": " + entry.getValue());
+      total += entry.getValue();
+    }
+    player.printMessage("Nodes: " + total + " (" + total * 1_000_000_000L / duration + " nodes/s)");
+    return null;
+  }
+}
@@ -3,6 +3,7 @@ package schach.game.accumulators;
 import schach.common.Position;
 import schach.game.accumulators.filters.MoveFilter;
 import schach.game.moves.Move;
+import schach.game.moves.MoveEncoding;
 import schach.game.state.Board;
 import schach.game.state.GameState;
 
@@ -100,6 +101,18 @@ public abstract class MoveAccumulator {
    */
   public abstract boolean addMove(Move move);
 
+  /**
+   * Adds an encoded move to this accumulator. The pieces generate encoded moves
+   * and accumulators that work with move objects get the decoded move. Other
+   * accumulators can override this to avoid constructing the move object.
+   * 
+   * @param move Encoded move to add to the accumulator
+   * @return If false, stop adding moves to the accumulator if possible
+   */
+  public boolean addMove(int move) {
+    return addMove(MoveEncoding.decode(move));
+  }
+
   /**
    * Returns if more moves should be generated. This can be used when the return
    * value from addMove can't be passed out of the enclosing method but this
@@ -112,7 +125,8 @@ public abstract class MoveAccumulator {
   /**
    * Returns if non-attacking moves should be generated. If false, moves that
    * aren't capturing moves don't need to be generated since they aren't
-   * interesting to the accumulator.
+   * interesting to the accumulator. Pawn promotions are generated regardless
+   * since they change the material on the board like captures do.
    * 
    * @return If non-attacking moves should even be considered
    */
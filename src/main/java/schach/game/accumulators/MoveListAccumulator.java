@@ -0,0 +1,55 @@
+package schach.game.accumulators;
+
+import schach.game.moves.Move;
+import schach.game.moves.MoveEncoding;
+import schach.game.moves.MoveList;
+
+/**
+ * Encodes the accumulated moves into a move list. This doesn't check the
+ * legality of the moves so that the user of the list can check only the moves
+ * it actually uses.
+ */
+public class MoveListAccumulator extends MoveAccumulator {
+  private final MoveList moves;
+  private final boolean nonAttacking;
+
+  /**
+   * Constructs a new move list accumulator that adds moves to the given list.
+   *
+   * @param moves        List to add the encoded moves to
+   * @param nonAttacking If non-attacking moves should be generated
+   */
+  public MoveListAccumulator(MoveList moves, boolean nonAttacking) {
+    this.moves = moves;
+    this.nonAttacking = nonAttacking;
+  }
+
+  public MoveList getMoves() {
+    return moves;
+  }
+
+  @Override
+  public boolean addMove(Move move) {
+    moves.add(MoveEncoding.encode(getBoard(), move));
+    return true;
+  }
+
+  /**
+   * Adds the encoded move to the list directly.
+   */
+  @Override
+  public boolean addMove(int move) {
+    moves.add(move);
+    return true;
+  }
+
+  @Override
+  public boolean generateMore() {
+    return true;
+  }
+
+  @Override
+  public boolean generateNonAttacking() {
+    return nonAttacking;
+  }
+}
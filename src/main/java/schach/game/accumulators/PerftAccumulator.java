@@ -0,0 +1,68 @@
+package schach.game.accumulators;
+
+import schach.game.moves.Move;
+
+/**
+ * Counts the leaf nodes of the move tree below the accumulated moves. Each
+ * accumulated move is applied and the game state after it is counted to the
+ * remaining depth. This should be used with only legal moves.
+ */
+public class PerftAccumulator extends MoveAccumulator {
+  private final int remainingDepth;
+  private long nodeCount;
+
+  /**
+   * Constructs a new perft accumulator that counts the given depth below each
+   * accumulated move.
+   * 
+   * @param remainingDepth Depth of the tree to count after each move
+   */
+  public PerftAccumulator(int remainingDepth) {
+    this.remainingDepth = remainingDepth;
+  }
+
+  /**
+   * Returns the number of leaf nodes counted so far.
+   * 
+   * @return Number of counted leaf nodes
+   */
+  public long getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Counts the leaf nodes after the given move. The move itself is a leaf node
+   * if there is no remaining depth.
+   */
+  @Override
+  public boolean addMove(Move move) {
+    nodeCount += remainingDepth == 0 ? 1 : gameState.runWithMove(move, () -> gameState.perft(remainingDepth));
+    return true;
+  }
+
+  /**
+   * Counts the leaf nodes after the given encoded move without constructing a
+   * move object.
+   */
+  @Override
+  public boolean addMove(int move) {
+    if (remainingDepth == 0) {
+      nodeCount++;
+    } else {
+      gameState.applyEncodedMove(move);
+      nodeCount += gameState.perft(remainingDepth);
+      gameState.reverseEncodedMove(move);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean generateMore() {
+    return true;
+  }
+
+  @Override
+  public boolean generateNonAttacking() {
+    return true;
+  }
+}
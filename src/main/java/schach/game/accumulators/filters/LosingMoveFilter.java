@@ -1,18 +1,222 @@
 package schach.game.accumulators.filters;
 
 import schach.common.Color;
+import schach.common.Position;
 import schach.game.moves.Move;
+import schach.game.moves.MoveEncoding;
+import schach.game.pieces.AttackTables;
+import schach.game.pieces.Piece;
+import schach.game.pieces.PieceType;
+import schach.game.state.Board;
+import schach.game.state.GameState;
 
 /**
  * A Losing move filter is an accumulator that wraps another accumulator and
  * only adds moves to the inner accumulator when they don't cause the current
  * active king to move into check or be put into check.
+ *
+ * The pieces checking the active king and the pieces pinned to it are
+ * determined once when the game state is set. Moves of pieces other than the
+ * king are then legal if they resolve a check (or there is none) and don't
+ * leave the line of a pin. King moves and double moves (castling and en
+ * passant) are checked by applying them and testing if the king is attacked
+ * since they change the attacks on the king in other ways.
  */
 public class LosingMoveFilter extends MoveFilter {
+  private Color color;
+  private int kingIndex;
+  private int checkerAmount;
+
+  /**
+   * Squares a move of a piece other than the king needs to target to resolve the
+   * check. This is the checking piece and the squares between it and the king if
+   * there is a single check. All squares are allowed if there is no check.
+   */
+  private long checkMask;
+
+  /**
+   * Bitboard of the pieces pinned to the king.
+   */
+  private long pinnedBits;
+
+  /**
+   * For each ray direction the squares from the king to the pinning piece if
+   * there is a pin in that direction.
+   */
+  private final long[] pinRays = new long[AttackTables.DIRECTION_AMOUNT];
+
+  /**
+   * Determines the checking and pinned pieces for the active color of the given
+   * game state.
+   */
+  @Override
+  public void setGameState(GameState gameState) {
+    super.setGameState(gameState);
+    color = gameState.getActiveColor();
+    checkerAmount = 0;
+    checkMask = ~0L;
+    pinnedBits = 0;
+
+    // without a king nothing can be checked
+    Position king = gameState.getBoard().getKingPositionFor(color);
+    if (king == null) {
+      kingIndex = -1;
+      return;
+    }
+    kingIndex = king.getBoardIndex();
+
+    findSlidingAttacks();
+    findJumpingAttacks();
+  }
+
+  /**
+   * Returns if the active king of the game state is in check. This is known
+   * without generating any moves once the game state has been set.
+   *
+   * @return If at least one piece checks the active king
+   */
+  public boolean isInCheck() {
+    return checkerAmount > 0;
+  }
+
+  /**
+   * Records a checking piece.
+   *
+   * @param checkSquares The checking piece and the squares between it and the
+   *                     king
+   */
+  private void addChecker(long checkSquares) {
+    checkerAmount++;
+
+    // nothing but a king move can resolve a double check
+    checkMask = checkerAmount == 1 ? checkSquares : 0;
+  }
+
+  /**
+   * Follows the rays from the king to find checks and pins by rooks, bishops and
+   * queens.
+   */
+  private void findSlidingAttacks() {
+    Board board = gameState.getBoard();
+    for (int direction = 0; direction < AttackTables.DIRECTION_AMOUNT; direction++) {
+      pinRays[direction] = 0;
+      PieceType slider = direction < AttackTables.FIRST_DIAGONAL ? PieceType.ROOK : PieceType.BISHOP;
+      long ray = 0;
+      int blockerIndex = -1;
+      for (int index : AttackTables.getRay(direction, kingIndex)) {
+        ray |= Board.squareBit(index);
+        Piece piece = board.getPieceAt(index);
+        if (piece == null) {
+          continue;
+        }
+
+        // the first own piece may be pinned, a second own piece blocks the ray
+        if (piece.getColor() == color) {
+          if (blockerIndex >= 0) {
+            break;
+          }
+          blockerIndex = index;
+          continue;
+        }
+
+        // an opposing piece that moves along this ray checks or pins
+        if (piece.getType() == slider || piece.getType() == PieceType.QUEEN) {
+          if (blockerIndex < 0) {
+            addChecker(ray);
+          } else {
+            pinnedBits |= Board.squareBit(blockerIndex);
+            pinRays[direction] = ray;
+          }
+        }
+        break;
+      }
+    }
+  }
+
+  /**
+   * Finds checks by knights and pawns.
+   */
+  private void findJumpingAttacks() {
+    Board board = gameState.getBoard();
+    Color opposing = color.getOpposing();
+    long checkers = AttackTables.getKnightAttacks(kingIndex) & board.getPieceBits(opposing, PieceType.KNIGHT);
+
+    // the opposing pawns that attack the king are on the squares a pawn of the
+    // king's color would attack
+    checkers |= AttackTables.getPawnAttacks(color, kingIndex) & board.getPieceBits(opposing, PieceType.PAWN);
+    while (checkers != 0) {
+      long checker = Long.lowestOneBit(checkers);
+      addChecker(checker);
+      checkers ^= checker;
+    }
+  }
+
+  /**
+   * Checks if the king is attacked after the given move by applying it.
+   *
+   * @param move Encoded move to check
+   * @return If the active king is not attacked after the move
+   */
+  private boolean keepsKingSafe(int move) {
+    gameState.applyEncodedMove(move);
+    boolean kingAttacked = gameState.getBoard().kingAttacked(color);
+    gameState.reverseEncodedMove(move);
+    return !kingAttacked;
+  }
+
+  /**
+   * Passes encoded moves on without decoding them if they are legal.
+   */
+  @Override
+  public boolean addMove(int move) {
+    if (isLegal(move)) {
+      return getAccumulator().addMove(move);
+    }
+    return generateMore();
+  }
+
   @Override
   protected boolean checkMove(Move move) {
-    // check if the currently active king can be attacked after making this move
-    Color prevActiveColor = gameState.getActiveColor();
-    return !gameState.runWithMove(move, () -> gameState.getBoard().kingAttacked(prevActiveColor));
+    return isLegal(MoveEncoding.encode(gameState.getBoard(), move));
+  }
+
+  /**
+   * Checks if an encoded move doesn't leave the active king in check. This can
+   * be used without an inner accumulator to check moves one by one after the
+   * game state has been set.
+   *
+   * @param move Encoded move to check
+   * @return If the move is legal
+   */
+  public boolean isLegal(int move) {
+    if (kingIndex < 0) {
+      return true;
+    }
+
+    // king moves, castling and en passant change the attacks on the king
+    // in ways the check and pin information doesn't cover
+    int originIndex = MoveEncoding.getOrigin(move);
+    Piece piece = gameState.getBoard().getPieceAt(originIndex);
+    if (originIndex == kingIndex || MoveEncoding.isCastling(move) || MoveEncoding.isEnPassant(move)
+        || piece.getColor() != color) {
+      return keepsKingSafe(move);
+    }
+
+    // the move needs to resolve a check if there is one
+    long targetBit = Board.squareBit(MoveEncoding.getTarget(move));
+    if ((targetBit & checkMask) == 0) {
+      return false;
+    }
+
+    // pinned pieces can only move along the ray of the pin
+    long originBit = Board.squareBit(originIndex);
+    if ((pinnedBits & originBit) != 0) {
+      for (long pinRay : pinRays) {
+        if ((pinRay & originBit) != 0) {
+          return (pinRay & targetBit) != 0;
+        }
+      }
+    }
+    return true;
   }
 }
@@ -15,12 +15,15 @@ abstract public class MoveFilter extends MoveAccumulator {
 
   /**
    * Sets the game state for both this accumulator and the inner accumulator in
-   * case the inner accumulator also needs the game state at some point.
+   * case the inner accumulator also needs the game state at some point. A filter
+   * may also be used on its own without an inner accumulator.
    */
   @Override
   public void setGameState(GameState gameState) {
     super.setGameState(gameState);
-    accumulator.setGameState(gameState);
+    if (accumulator != null) {
+      accumulator.setGameState(gameState);
+    }
   }
 
   /**
@@ -32,6 +35,10 @@ abstract public class MoveFilter extends MoveAccumulator {
     this.accumulator = accumulator;
   }
 
+  protected MoveAccumulator getAccumulator() {
+    return accumulator;
+  }
+
   /**
    * Method in which implementing filters determine if a given move should be
    * passed along.
@@ -27,7 +27,7 @@ public abstract class Move {
    * @return True if this move is the latest move
    */
   public boolean isLatestMoveOf(GameState game) {
-    return game.getJournal().isLatestMoveIndex(moveIndex);
+    return game.getMoveIndex() == moveIndex;
   }
 
   /**
@@ -52,6 +52,18 @@ public abstract class Move {
     this.moveIndex = moveIndex;
   }
 
+  /**
+   * Returns a compact key for this move made up of the board indexes of the
+   * origin and target positions and the move type. Two moves that can be made
+   * in the same game state have the same key only if they are the same move.
+   * The key is never 0 since the origin and target are always different.
+   * 
+   * @return Key identifying this move within a game state
+   */
+  public int getKey() {
+    return getOriginPosition().getBoardIndex() | getTargetPosition().getBoardIndex() << 6 | moveType.ordinal() << 12;
+  }
+
   /**
    * Returns which color this move was made by determined by it's move index.
    * 
@@ -0,0 +1,234 @@
+package schach.game.moves;
+
+import schach.common.Constants;
+import schach.common.Position;
+import schach.game.pieces.Piece;
+import schach.game.pieces.PieceType;
+import schach.game.state.Board;
+
+/**
+ * Packs moves into a single int so that the search can store, order and apply
+ * them without allocating move objects. The bits of an encoded move are:
+ *
+ * 0-5: Board index of the origin square
+ *
+ * 6-11: Board index of the target square
+ *
+ * 12-14: Ordinal of the move type
+ *
+ * 15-17: Ordinal of the captured piece type plus one, 0 if nothing is captured
+ *
+ * 18: Set for en passant captures
+ *
+ * 19: Set for castling moves
+ *
+ * The lowest 15 bits are the same as the key of the move object. Since the
+ * captured piece is part of the encoding, an encoded move is only valid in the
+ * game state it was encoded in. Move objects are only needed at the boundary to
+ * the rest of the game such as the journal and the user interfaces.
+ */
+public final class MoveEncoding {
+  private static final int TARGET_SHIFT = 6;
+  private static final int TYPE_SHIFT = 12;
+  private static final int CAPTURED_SHIFT = 15;
+  private static final int SQUARE_MASK = 0x3F;
+  private static final int TYPE_MASK = 0x7;
+  private static final int KEY_MASK = (1 << CAPTURED_SHIFT) - 1;
+  private static final int EN_PASSANT = 1 << 18;
+  private static final int CASTLING = 1 << 19;
+
+  /**
+   * The values of the enums are cached since values() creates a new array on
+   * every call.
+   */
+  private static final MoveType[] MOVE_TYPES = MoveType.values();
+  private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+  /**
+   * Prevent instances of this class
+   */
+  private MoveEncoding() {
+  }
+
+  /**
+   * Encodes a move made by the piece at the given origin.
+   *
+   * @param origin       Board index of the origin square
+   * @param target       Board index of the target square
+   * @param moveType     Type of the move
+   * @param capturedType Type of the captured piece, null if nothing is captured
+   * @return Encoded move
+   */
+  public static int encode(int origin, int target, MoveType moveType, PieceType capturedType) {
+    int move = origin | target << TARGET_SHIFT | moveType.ordinal() << TYPE_SHIFT;
+    if (capturedType != null) {
+      move |= capturedType.ordinal() + 1 << CAPTURED_SHIFT;
+    }
+    return move;
+  }
+
+  /**
+   * Encodes a castling move. The rook's movement follows from the movement of
+   * the king.
+   *
+   * @param origin Board index of the king's square
+   * @param target Board index of the square the king moves to
+   * @return Encoded castling move
+   */
+  public static int encodeCastling(int origin, int target) {
+    return encode(origin, target, MoveType.UNSPECIFIED, null) | CASTLING;
+  }
+
+  /**
+   * Encodes an en passant capture. The captured pawn is next to the origin on
+   * the file of the target.
+   *
+   * @param origin Board index of the capturing pawn
+   * @param target Board index of the square the capturing pawn moves to
+   * @return Encoded en passant capture
+   */
+  public static int encodeEnPassant(int origin, int target) {
+    return encode(origin, target, MoveType.UNSPECIFIED, PieceType.PAWN) | EN_PASSANT;
+  }
+
+  /**
+   * Encodes a move object that can be made on the given board. Castling and en
+   * passant are recognized as double moves of a king and a pawn respectively.
+   *
+   * @param board Board the move is made on
+   * @param move  Move to encode
+   * @return Encoded move
+   */
+  public static int encode(Board board, Move move) {
+    int origin = move.getOriginPosition().getBoardIndex();
+    int target = move.getTargetPosition().getBoardIndex();
+    if (move instanceof DoubleMove) {
+      return board.getPieceAt(origin).getType() == PieceType.KING ? encodeCastling(origin, target)
+          : encodeEnPassant(origin, target);
+    }
+    Piece victim = board.getPieceAt(target);
+    return encode(origin, target, move.getMoveType(), victim == null ? null : victim.getType());
+  }
+
+  /**
+   * Constructs the move object for an encoded move. The constructed move is
+   * equal to the move generated by the pieces.
+   *
+   * @param move Encoded move
+   * @return Move object that does the same as the encoded move
+   */
+  public static Move decode(int move) {
+    Position origin = Position.fromBoardIndex(getOrigin(move));
+    Position target = Position.fromBoardIndex(getTarget(move));
+    if (isCastling(move)) {
+      return new DoubleMove(new Movement(origin, target), new Movement(
+          Position.fromBoardIndex(getCastlingRookOrigin(move)), Position.fromBoardIndex(getCastlingRookTarget(move))));
+    }
+    if (isEnPassant(move)) {
+      Position capturePosition = Position.fromBoardIndex(getCaptureIndex(move));
+      return new DoubleMove(new CapturingMove(origin, capturePosition), new Movement(capturePosition, target), origin,
+          target);
+    }
+
+    Movement baseMove = isCapture(move) ? new CapturingMove(origin, target) : new Movement(origin, target);
+    MoveType moveType = getMoveType(move);
+    if (moveType.isPromotion()) {
+      return new PromotionMove(baseMove, moveType);
+    }
+    baseMove.setMoveType(moveType);
+    return baseMove;
+  }
+
+  /**
+   * Returns the key of an encoded move. It's the same as the key of the move
+   * object and identifies the move within a game state.
+   *
+   * @param move Encoded move
+   * @return Key of the move
+   */
+  public static int getKey(int move) {
+    return move & KEY_MASK;
+  }
+
+  public static int getOrigin(int move) {
+    return move & SQUARE_MASK;
+  }
+
+  public static int getTarget(int move) {
+    return move >>> TARGET_SHIFT & SQUARE_MASK;
+  }
+
+  public static MoveType getMoveType(int move) {
+    return MOVE_TYPES[move >>> TYPE_SHIFT & TYPE_MASK];
+  }
+
+  /**
+   * Returns the type of the piece an encoded move captures.
+   *
+   * @param move Encoded move
+   * @return Type of the captured piece, null if the move is not a capture
+   */
+  public static PieceType getCapturedType(int move) {
+    int captured = move >>> CAPTURED_SHIFT & TYPE_MASK;
+    return captured == 0 ? null : PIECE_TYPES[captured - 1];
+  }
+
+  public static boolean isCapture(int move) {
+    return (move >>> CAPTURED_SHIFT & TYPE_MASK) != 0;
+  }
+
+  public static boolean isEnPassant(int move) {
+    return (move & EN_PASSANT) != 0;
+  }
+
+  public static boolean isCastling(int move) {
+    return (move & CASTLING) != 0;
+  }
+
+  /**
+   * Returns if an encoded move is quiet, meaning it neither captures nor
+   * promotes.
+   *
+   * @param move Encoded move
+   * @return If the move is quiet
+   */
+  public static boolean isQuiet(int move) {
+    return !isCapture(move) && !getMoveType(move).isPromotion();
+  }
+
+  /**
+   * Returns the board index of the square of the captured piece. This is the
+   * target square except for en passant captures where the captured pawn is next
+   * to the origin square.
+   *
+   * @param move Encoded move
+   * @return Board index of the captured piece
+   */
+  public static int getCaptureIndex(int move) {
+    return isEnPassant(move) ? getOrigin(move) & ~(Constants.BOARD_SIZE - 1) | getTarget(move) & Constants.BOARD_SIZE - 1
+        : getTarget(move);
+  }
+
+  /**
+   * Returns the board index of the starting square of the rook of a castling
+   * move. The rook is in the corner on the side the king moves towards.
+   *
+   * @param move Encoded castling move
+   * @return Board index of the rook before castling
+   */
+  public static int getCastlingRookOrigin(int move) {
+    int rank = getOrigin(move) & ~(Constants.BOARD_SIZE - 1);
+    return getTarget(move) > getOrigin(move) ? rank + Constants.BOARD_SIZE - 1 : rank;
+  }
+
+  /**
+   * Returns the board index of the square the rook of a castling move moves to.
+   * This is the square the king passes over.
+   *
+   * @param move Encoded castling move
+   * @return Board index of the rook after castling
+   */
+  public static int getCastlingRookTarget(int move) {
+    return getTarget(move) > getOrigin(move) ? getTarget(move) - 1 : getTarget(move) + 1;
+  }
+}
@@ -0,0 +1,80 @@
+package schach.game.moves;
+
+/**
+ * A reusable list of encoded moves with a score for each move. The search keeps
+ * one list for each depth and clears it instead of creating a new one so that
+ * generating and ordering moves doesn't allocate.
+ */
+public class MoveList {
+  /**
+   * How many moves a list can hold. No game state has more than 218 legal moves
+   * and the pseudo-legal moves of reachable game states stay below this too.
+   */
+  public static final int CAPACITY = 256;
+
+  private final int[] moves = new int[CAPACITY];
+  private final int[] scores = new int[CAPACITY];
+  private int size;
+
+  /**
+   * Removes all moves from this list.
+   */
+  public void clear() {
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds an encoded move with a score of 0 to the end of this list.
+   *
+   * @param move Encoded move to add
+   */
+  public void add(int move) {
+    moves[size] = move;
+    scores[size] = 0;
+    size++;
+  }
+
+  public int get(int index) {
+    return moves[index];
+  }
+
+  public int getScore(int index) {
+    return scores[index];
+  }
+
+  public void setScore(int index, int score) {
+    scores[index] = score;
+  }
+
+  /**
+   * Moves the highest scoring move at or after the given index to the given index
+   * and returns it. Calling this for each index in order goes through the moves
+   * best first. The moves are selected one by one instead of sorting them since
+   * usually only the first few are needed before a cut off.
+   *
+   * @param index Index to put the best remaining move at
+   * @return Best move at or after the index
+   */
+  public int selectBest(int index) {
+    int bestIndex = index;
+    for (int i = index + 1; i < size; i++) {
+      if (scores[i] > scores[bestIndex]) {
+        bestIndex = i;
+      }
+    }
+
+    if (bestIndex != index) {
+      int move = moves[bestIndex];
+      int score = scores[bestIndex];
+      moves[bestIndex] = moves[index];
+      scores[bestIndex] = scores[index];
+      moves[index] = move;
+      scores[index] = score;
+    }
+    return moves[index];
+  }
+}
@@ -3,6 +3,8 @@ package schach.game.moves;
 import java.util.EnumSet;
 import java.util.Set;
 
+import schach.game.pieces.PieceType;
+
 /**
  * Holds all the different types of special moves that can be made. This enum is
  * only used when it's required by some game logic to check the type of the
@@ -31,4 +33,24 @@ public enum MoveType {
   public boolean isPromotion() {
     return PROMOTION_TYPES.contains(this);
   }
+
+  /**
+   * Returns the type of the piece a pawn is promoted to with this move type.
+   * 
+   * @return Type of the promoted piece, null if this is not a promotion type
+   */
+  public PieceType getPromotionPieceType() {
+    switch (this) {
+      case PROMOTION_QUEEN:
+        return PieceType.QUEEN;
+      case PROMOTION_ROOK:
+        return PieceType.ROOK;
+      case PROMOTION_BISHOP:
+        return PieceType.BISHOP;
+      case PROMOTION_KNIGHT:
+        return PieceType.KNIGHT;
+      default:
+        return null;
+    }
+  }
 }
@@ -105,7 +105,6 @@ public class PromotionMove extends Move {
     Position promotionPosition = baseMove.getToPosition();
     Piece promotedPiece = board.getPieceAt(promotionPosition);
     Piece originalPiece = promotedPiece.getReplacedPiece();
-    promotedPiece.setReplacedPiece(null);
     board.removePiece(promotionPosition);
     board.placeNewPiece(promotionPosition, originalPiece);
 
@@ -0,0 +1,334 @@
+package schach.game.pieces;
+
+import java.util.Arrays;
+
+import schach.common.Color;
+import schach.common.Constants;
+import schach.common.Position;
+
+/**
+ * Holds the squares each kind of piece can reach from each square of an empty
+ * board. The tables are built once when the class is loaded so that move
+ * generation and attack detection only need to look up the targets instead of
+ * adding offsets and checking the bounds of the board.
+ * 
+ * The jumping pieces have a bitboard of their targets for each square. The
+ * squares of each ray from each square are also kept as a list ordered outwards
+ * for following a ray up to the first pieces in the way.
+ * 
+ * The attacks of the sliding pieces with the pieces on the board in the way are
+ * looked up with magic bitboards. The relevant occupied squares are multiplied
+ * with a magic number that maps each combination of blockers to an index in a
+ * table of precomputed attacks. The tables are filled with the magic numbers
+ * when the class is loaded. The magic numbers themselves were found once by
+ * trying random numbers with few bits set since searching for them on every
+ * start takes too long.
+ */
+public final class AttackTables {
+  /**
+   * How many ray directions there are. The first four are orthogonal, the other
+   * four diagonal.
+   */
+  public static final int DIRECTION_AMOUNT = 8;
+
+  /**
+   * Index of the first diagonal direction. Orthogonal directions come before it.
+   */
+  public static final int FIRST_DIAGONAL = 4;
+
+  private static final int[] DIRECTION_X = { 1, -1, 0, 0, 1, 1, -1, -1 };
+  private static final int[] DIRECTION_Y = { 0, 0, 1, -1, 1, -1, 1, -1 };
+
+  private static final int[] KNIGHT_X = { 1, 2, 2, 1, -1, -2, -2, -1 };
+  private static final int[] KNIGHT_Y = { 2, 1, -1, -2, -2, -1, 1, 2 };
+
+  private static final long[] KNIGHT_ATTACKS = new long[Constants.SQUARE_AMOUNT];
+  private static final long[] KING_ATTACKS = new long[Constants.SQUARE_AMOUNT];
+
+  /**
+   * Squares attacked by a pawn by color index and square.
+   */
+  private static final long[][] PAWN_ATTACKS = new long[Color.AMOUNT][Constants.SQUARE_AMOUNT];
+
+  /**
+   * Board indexes of the squares of each ray by direction and square.
+   */
+  private static final int[][][] RAYS = new int[DIRECTION_AMOUNT][Constants.SQUARE_AMOUNT][];
+
+  /**
+   * Magic numbers of the rooks by square. They map the blockers on the rook's
+   * lines to indexes in the attack table without collisions.
+   */
+  private static final long[] ROOK_MAGIC_NUMBERS = {
+      0x5080001080400820L, 0x640100020084002L, 0x4880088020001000L, 0x1100100100080420L,
+      0x200020011040820L, 0x100080400020100L, 0x200480320860004L, 0x10001810004402AL,
+      0x20800080400020L, 0x4181002040008100L, 0x1042001082004020L, 0x4020040041008200L,
+      0x2800800040080L, 0x42000402000811L, 0x8104000D1086082CL, 0x2052800500004080L,
+      0x10208000400880L, 0x910014040002000L, 0x10002008002400L, 0x430042000A002011L,
+      0x8008008040280L, 0x4208808004000200L, 0x2080040001080210L, 0x401020001108054L,
+      0x561020200208040L, 0x50104040002001L, 0x40008A0200104020L, 0x218800828010008AL,
+      0x4014C80180080L, 0x202008080020400L, 0xA000A0008310CL, 0x2050012200009844L,
+      0x980002000400052L, 0x100201000404000L, 0x4020008020801000L, 0x81022004200L,
+      0x80C0800800800401L, 0x80020080800400L, 0x400018014400102AL, 0x4010241342000085L,
+      0x20228040028000L, 0x90022000414002L, 0x10820010220040L, 0x8001001818048L,
+      0x18000804008080L, 0x807000400030008L, 0x2004824120001L, 0x828108C60004L,
+      0x4420304000800880L, 0x100400020008080L, 0x200410008480L, 0x10004895210100L,
+      0x222680100101500L, 0x8241000400180300L, 0x20810218400L, 0x1B10004100842200L,
+      0x500210418C08001L, 0x4044400100201081L, 0x80A04201040800AL, 0xA08500100009L,
+      0x1200200450C802L, 0x412001004010802L, 0x4010488802091004L, 0x2008014104088662L };
+
+  /**
+   * Magic numbers of the bishops by square.
+   */
+  private static final long[] BISHOP_MAGIC_NUMBERS = {
+      0x40846082004100L, 0x832204A402820100L, 0x8008081900200341L, 0x204242080B08100L,
+      0x4042300188600L, 0x4000904420001058L, 0xC04C411820100420L, 0x1200C04448084080L,
+      0x80821880201L, 0x80401020C0110L, 0x1010C10C43004008L, 0x2000180681088021L,
+      0x40620211100000L, 0x21A0884808040105L, 0x10422024000L, 0x2302402101082000L,
+      0x421401004010820L, 0x8148102188088E80L, 0x240400210820081L, 0x2248001101410404L,
+      0xC08C01E211200000L, 0x880A020108020258L, 0x2440002220E4200L, 0x20A42114021204L,
+      0x32740E2200410L, 0x10248002040420L, 0x70B0242008024400L, 0x820104028004040L,
+      0x2089080441004000L, 0x4004002882000L, 0x6000908041081880L, 0x4A0270820114L,
+      0x204908880642000L, 0x400201040420081DL, 0x42402210900408L, 0x100400820420200L,
+      0x20108400008020L, 0x4480200102086L, 0x502560400060084L, 0x402004502004400L,
+      0x50CA30022000882CL, 0x2004020111000400L, 0xC100820802021900L, 0x18020212020400L,
+      0xC040402109080200L, 0x2100200200201L, 0x1082081800882124L, 0x402821042040500L,
+      0x8046021002488400L, 0x20380A410028010L, 0x40000A04A4040104L, 0x4004200042020000L,
+      0x88000010421A020AL, 0x202500210044426L, 0x8020408120220L, 0x810119904008080L,
+      0x140401280800L, 0x88402104100442L, 0x10000042D080808L, 0x8020300842400L,
+      0x804840228200L, 0x40082020012A43L, 0x2800204310011100L, 0x84012240C208090L };
+
+  private static final Magic[] ROOK_MAGICS = new Magic[Constants.SQUARE_AMOUNT];
+  private static final Magic[] BISHOP_MAGICS = new Magic[Constants.SQUARE_AMOUNT];
+
+  /**
+   * The magic lookup of the sliding attacks from one square.
+   */
+  private static final class Magic {
+    /**
+     * The squares whose pieces can block the rays. The last square of each ray is
+     * not relevant since there's nothing behind it to block.
+     */
+    private final long mask;
+    private final long magic;
+    private final int shift;
+    private final long[] attacks;
+
+    /**
+     * Constructs a magic lookup from the given values.
+     * 
+     * @param mask    Squares relevant for blocking
+     * @param magic   Magic number that maps the blockers to distinct indexes
+     * @param attacks Attacked squares by index
+     */
+    private Magic(long mask, long magic, long[] attacks) {
+      this.mask = mask;
+      this.magic = magic;
+      this.shift = Long.SIZE - Long.bitCount(mask);
+      this.attacks = attacks;
+    }
+
+    /**
+     * Looks up the attacked squares with the given occupied squares.
+     * 
+     * @param occupancy Bitboard of all occupied squares
+     * @return Bitboard of the attacked squares
+     */
+    private long getAttacks(long occupancy) {
+      return attacks[(int) ((occupancy & mask) * magic >>> shift)];
+    }
+  }
+
+  static {
+    for (int square = 0; square < Constants.SQUARE_AMOUNT; square++) {
+      int x = square % Constants.BOARD_SIZE;
+      int y = square / Constants.BOARD_SIZE;
+      for (int i = 0; i < KNIGHT_X.length; i++) {
+        KNIGHT_ATTACKS[square] |= squareBit(x + KNIGHT_X[i], y + KNIGHT_Y[i]);
+      }
+      for (int direction = 0; direction < DIRECTION_AMOUNT; direction++) {
+        KING_ATTACKS[square] |= squareBit(x + DIRECTION_X[direction], y + DIRECTION_Y[direction]);
+        RAYS[direction][square] = buildRay(x, y, direction);
+      }
+
+      // white pawns move towards y = 0, black pawns towards the other side
+      PAWN_ATTACKS[Color.WHITE.getIndex()][square] = squareBit(x - 1, y - 1) | squareBit(x + 1, y - 1);
+      PAWN_ATTACKS[Color.BLACK.getIndex()][square] = squareBit(x - 1, y + 1) | squareBit(x + 1, y + 1);
+    }
+
+    for (int square = 0; square < Constants.SQUARE_AMOUNT; square++) {
+      ROOK_MAGICS[square] = buildMagic(square, ROOK_MAGIC_NUMBERS[square], 0, FIRST_DIAGONAL);
+      BISHOP_MAGICS[square] = buildMagic(square, BISHOP_MAGIC_NUMBERS[square], FIRST_DIAGONAL, DIRECTION_AMOUNT);
+    }
+  }
+
+  /**
+   * Prevent instances of this class
+   */
+  private AttackTables() {
+  }
+
+  /**
+   * Returns the bitboard of the square with the given coordinates. Squares
+   * outside of the board result in an empty bitboard.
+   * 
+   * @param x X coordinate of the square
+   * @param y Y coordinate of the square
+   * @return Bitboard with only the square set or empty if it's out of bounds
+   */
+  private static long squareBit(int x, int y) {
+    Position position = Position.of(x, y);
+    return position == Position.OFF_BOARD ? 0 : 1L << position.getBoardIndex();
+  }
+
+  /**
+   * Collects the squares from the given square in the given direction up to the
+   * edge of the board.
+   * 
+   * @param x         X coordinate of the starting square
+   * @param y         Y coordinate of the starting square
+   * @param direction Direction of the ray
+   * @return Board indexes of the squares of the ray, ordered outwards
+   */
+  private static int[] buildRay(int x, int y, int direction) {
+    int length = 0;
+    int[] ray = new int[Constants.BOARD_SIZE - 1];
+    Position position = Position.of(x + DIRECTION_X[direction], y + DIRECTION_Y[direction]);
+    while (position != Position.OFF_BOARD) {
+      ray[length++] = position.getBoardIndex();
+      position = Position.of(position.getX() + DIRECTION_X[direction], position.getY() + DIRECTION_Y[direction]);
+    }
+    return Arrays.copyOf(ray, length);
+  }
+
+  /**
+   * Computes the squares attacked along the rays in the given range of directions
+   * by following each ray up to the first occupied square.
+   * 
+   * @param square         Board index of the sliding piece
+   * @param occupancy      Bitboard of the occupied squares
+   * @param firstDirection First direction of the rays to follow
+   * @param endDirection   Direction after the last one to follow
+   * @return Bitboard of the attacked squares
+   */
+  private static long computeRayAttacks(int square, long occupancy, int firstDirection, int endDirection) {
+    long attacks = 0;
+    for (int direction = firstDirection; direction < endDirection; direction++) {
+      for (int index : RAYS[direction][square]) {
+        long bit = 1L << index;
+        attacks |= bit;
+        if ((occupancy & bit) != 0) {
+          break;
+        }
+      }
+    }
+    return attacks;
+  }
+
+  /**
+   * Builds the attack table of the rays from the given square with the given
+   * magic number. Each combination of blockers is mapped to its index and the
+   * attacks with these blockers are stored there. Different combinations may
+   * share an index only if they result in the same attacks.
+   * 
+   * @param square         Board index of the sliding piece
+   * @param magic          Magic number for the square
+   * @param firstDirection First direction of the rays of the piece
+   * @param endDirection   Direction after the last one of the piece
+   * @return Magic lookup for the square
+   */
+  private static Magic buildMagic(int square, long magic, int firstDirection, int endDirection) {
+    long mask = 0;
+    for (int direction = firstDirection; direction < endDirection; direction++) {
+      int[] ray = RAYS[direction][square];
+      for (int i = 0; i < ray.length - 1; i++) {
+        mask |= 1L << ray[i];
+      }
+    }
+
+    // go through all subsets of the mask
+    int shift = Long.SIZE - Long.bitCount(mask);
+    long[] table = new long[1 << Long.bitCount(mask)];
+    boolean[] filled = new boolean[table.length];
+    long subset = 0;
+    do {
+      int index = (int) (subset * magic >>> shift);
+      long attacks = computeRayAttacks(square, subset, firstDirection, endDirection);
+      if (filled[index] && table[index] != attacks) {
+        throw new IllegalStateException("The magic number of square " + square + " is invalid.");
+      }
+      table[index] = attacks;
+      filled[index] = true;
+      subset = subset - mask & mask;
+    } while (subset != 0);
+    return new Magic(mask, magic, table);
+  }
+
+  /**
+   * Returns the squares a knight attacks from the given square.
+   * 
+   * @param square Board index of the knight
+   * @return Bitboard of the attacked squares
+   */
+  public static long getKnightAttacks(int square) {
+    return KNIGHT_ATTACKS[square];
+  }
+
+  /**
+   * Returns the squares a king attacks from the given square.
+   * 
+   * @param square Board index of the king
+   * @return Bitboard of the attacked squares
+   */
+  public static long getKingAttacks(int square) {
+    return KING_ATTACKS[square];
+  }
+
+  /**
+   * Returns the squares a pawn of the given color attacks from the given
+   * square. These are the two squares diagonally in front of it.
+   * 
+   * @param color  Color of the pawn
+   * @param square Board index of the pawn
+   * @return Bitboard of the attacked squares
+   */
+  public static long getPawnAttacks(Color color, int square) {
+    return PAWN_ATTACKS[color.getIndex()][square];
+  }
+
+  /**
+   * Returns the squares a rook attacks from the given square. The attacks along
+   * each line end at the first occupied square, which is included.
+   * 
+   * @param square    Board index of the rook
+   * @param occupancy Bitboard of the occupied squares
+   * @return Bitboard of the attacked squares
+   */
+  public static long getRookAttacks(int square, long occupancy) {
+    return ROOK_MAGICS[square].getAttacks(occupancy);
+  }
+
+  /**
+   * Returns the squares a bishop attacks from the given square. The attacks
+   * along each diagonal end at the first occupied square, which is included.
+   * 
+   * @param square    Board index of the bishop
+   * @param occupancy Bitboard of the occupied squares
+   * @return Bitboard of the attacked squares
+   */
+  public static long getBishopAttacks(int square, long occupancy) {
+    return BISHOP_MAGICS[square].getAttacks(occupancy);
+  }
+
+  /**
+   * Returns the squares of a ray from the given square. The returned array must
+   * not be modified.
+   * 
+   * @param direction Direction of the ray, orthogonal directions come first
+   * @param square    Board index of the starting square
+   * @return Board indexes of the squares of the ray, ordered outwards
+   */
+  public static int[] getRay(int direction, int square) {
+    return RAYS[direction][square];
+  }
+}
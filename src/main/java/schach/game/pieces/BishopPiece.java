@@ -1,7 +1,6 @@
 package schach.game.pieces;
 
 import schach.common.Color;
-import schach.common.Position;
 import schach.game.accumulators.MoveAccumulator;
 
 /**
@@ -10,8 +9,6 @@ import schach.game.accumulators.MoveAccumulator;
  * squares this means it always stays on color color of squares.
  */
 public class BishopPiece extends Piece {
-  private Color squareColor;
-
   /**
    * Constructs a bishop piece with the given color.
    * 
@@ -22,22 +19,9 @@ public class BishopPiece extends Piece {
     type = PieceType.BISHOP;
   }
 
-  /**
-   * Uses extra information about the position to init the board color of this
-   * bishop. Bishops can only move along one color.
-   * 
-   * @param position Position this piece was started on
-   */
-  public void notifyPosition(Position position) {
-    squareColor = (position.getX() + position.getY()) % 2 == 0 ? Color.WHITE : Color.BLACK;
-  }
-
-  public Color getSquareColor() {
-    return squareColor;
-  }
-
   @Override
   boolean accumulateMoves(MoveAccumulator accumulator) {
-    return processRayPatterns(accumulator, OffsetPatterns.DIAGONAL);
+    int from = accumulator.getPosition().getBoardIndex();
+    return accumulateTargets(accumulator, AttackTables.getBishopAttacks(from, accumulator.getBoard().getOccupancy()));
   }
 }
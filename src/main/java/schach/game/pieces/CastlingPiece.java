@@ -7,7 +7,7 @@ import schach.game.accumulators.MoveAccumulator;
  * Pieces that can castle extend this class in order to get the correct return
  * value from canCastle. (king and rook)
  */
-public abstract class CastlingPiece extends HistoryPiece {
+public abstract class CastlingPiece extends Piece {
   /**
    * Constructs a castling piece with the given color.
    * 
@@ -18,10 +18,11 @@ public abstract class CastlingPiece extends HistoryPiece {
   }
 
   /**
-   * Castling pieces can castle if they have not moved yet.
+   * Castling pieces can castle if the board still has a castling right for the
+   * square they are on. The right is lost when the piece moves.
    */
   @Override
   public boolean canCastle(MoveAccumulator accumulator) {
-    return !hasMoved(accumulator);
+    return accumulator.getBoard().hasCastlingRight(accumulator.getPosition().getBoardIndex());
   }
 }
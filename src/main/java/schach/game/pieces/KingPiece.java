@@ -6,8 +6,7 @@ import schach.common.Color;
 import schach.common.Position;
 import schach.common.Vector;
 import schach.game.accumulators.MoveAccumulator;
-import schach.game.moves.DoubleMove;
-import schach.game.moves.Movement;
+import schach.game.moves.MoveEncoding;
 
 /**
  * The king piece can move a single square in any direction as long as it can't
@@ -19,15 +18,14 @@ public class KingPiece extends CastlingPiece {
    * the same castling moves since the kings are at the same x coordinate in their
    * starting positions.
    */
-  private static final Set<CastlingPattern> CASTLING_PATTERNS = Set.of(new CastlingPattern(2, -2, 3),
-      new CastlingPattern(-2, 3, -4));
+  private static final Set<CastlingPattern> CASTLING_PATTERNS = Set.of(new CastlingPattern(2, 3),
+      new CastlingPattern(-2, -4));
 
   /**
    * Describes a combination of vectors needed to construct a castling move.
    */
   private static class CastlingPattern {
     private final Vector kingOffset;
-    private final Vector rookOffset;
     private final Vector rookStartOffset;
     private final Vector stepOffset;
 
@@ -36,13 +34,11 @@ public class KingPiece extends CastlingPiece {
      * involved since castling only happens horizontally.
      * 
      * @param kingOffset X coordinate offset in the movement of the king
-     * @param rookOffset X coordinate offset in the movement of the rook
      * @param kingToRook Offset from the king to the rook for determining the
      *                   position where the rook needs to start
      */
-    public CastlingPattern(int kingOffset, int rookOffset, int kingToRook) {
+    public CastlingPattern(int kingOffset, int kingToRook) {
       this.kingOffset = new Vector(kingOffset, 0);
-      this.rookOffset = new Vector(rookOffset, 0);
 
       // compute the preliminary checking step offset from the king offset
       stepOffset = new Vector(kingOffset > 0 ? 1 : -1, 0);
@@ -63,11 +59,11 @@ public class KingPiece extends CastlingPiece {
      * @return If more moves should be generated
      */
     private boolean accumulateCastling(MoveAccumulator accumulator, Piece onPiece) {
-      // check that the rook is present and has not moved
+      // check that the rook of the same color is present and has not moved, which
+      // is the case if the castling right of its square still exists
       Position from = accumulator.getPosition();
       Position rookStart = Position.fromOffset(from, rookStartOffset);
-      Piece rook = accumulator.getGameState().getPieceAt(rookStart);
-      if (rook == null || !rook.canCastle(accumulator)) {
+      if (!accumulator.getBoard().hasCastlingRight(rookStart.getBoardIndex())) {
         return true;
       }
 
@@ -80,7 +76,8 @@ public class KingPiece extends CastlingPiece {
       // check the fields in the line to movement to be non-attacked
       // later only free of obstacles
       Position checkPosition = Position.fromOffset(from, stepOffset);
-      while (!checkPosition.equals(rookStart)) {
+      // positions from offsets are shared instances and can be compared directly
+      while (checkPosition != rookStart) {
         Piece checkPiece = accumulator.getGameState().getPieceAt(checkPosition);
         if (checkPiece != null) {
           return true;
@@ -88,7 +85,9 @@ public class KingPiece extends CastlingPiece {
 
         // if still within the king movement range, also check for non-attacked
         if (checkingNonAttacked) {
-          if (onPiece.isAttackedAt(accumulator, checkPosition)) {
+          // the king can stay where it is since it only blocks attacks on
+          // the squares next to it if it's being attacked itself
+          if (accumulator.getBoard().isSquareAttacked(checkPosition, onPiece.getColor().getOpposing())) {
             return true;
           }
           if (checkPosition.equals(kingTarget)) {
@@ -99,9 +98,9 @@ public class KingPiece extends CastlingPiece {
         checkPosition = Position.fromOffset(checkPosition, stepOffset);
       }
 
-      // generate and accumulate the castling move now that we know it's legal
-      return accumulator.addMove(new DoubleMove(new Movement(from, kingTarget),
-          new Movement(rookStart, Position.fromOffset(rookStart, rookOffset))));
+      // generate and accumulate the castling move now that we know it's legal,
+      // the movement of the rook follows from the movement of the king
+      return accumulator.addMove(MoveEncoding.encodeCastling(from.getBoardIndex(), kingTarget.getBoardIndex()));
     }
   }
 
@@ -123,7 +122,9 @@ public class KingPiece extends CastlingPiece {
   @Override
   boolean accumulateMoves(MoveAccumulator accumulator) {
     // accumulate regular moves in all directions
-    processJumpPatterns(accumulator, OffsetPatterns.AROUND);
+    if (!accumulateTargets(accumulator, AttackTables.getKingAttacks(accumulator.getPosition().getBoardIndex()))) {
+      return false;
+    }
 
     // check the two castling moves if not moved yet and not being attacked
     if (accumulator.generateNonAttacking() && canCastle(accumulator)
@@ -20,6 +20,6 @@ public class KnightPiece extends Piece {
 
   @Override
   boolean accumulateMoves(MoveAccumulator accumulator) {
-    return processJumpPatterns(accumulator, OffsetPatterns.KNIGHT);
+    return accumulateTargets(accumulator, AttackTables.getKnightAttacks(accumulator.getPosition().getBoardIndex()));
   }
 }
@@ -1,23 +1,19 @@
 package schach.game.pieces;
 
 import schach.common.Color;
+import schach.common.Constants;
 import schach.common.Position;
-import schach.common.Vector;
 import schach.game.accumulators.MoveAccumulator;
-import schach.game.moves.CapturingMove;
-import schach.game.moves.DoubleMove;
-import schach.game.moves.Move;
+import schach.game.moves.MoveEncoding;
 import schach.game.moves.MoveType;
-import schach.game.moves.Movement;
-import schach.game.moves.PromotionMove;
-import schach.game.state.GameState;
+import schach.game.state.Board;
 
 /**
  * The pawn piece can move one or initially two squares vertically up or down
  * depending on its color without obstruction. It can only capture by moving
  * diagonally in it's designated direction.
  */
-public class PawnPiece extends HistoryPiece {
+public class PawnPiece extends Piece {
   /**
    * Constructs a pawn piece with the given color. The color of a pawn affects in
    * which direction it can move.
@@ -30,94 +26,76 @@ public class PawnPiece extends HistoryPiece {
   }
 
   /**
-   * Checks if the given en passant move specified by the capturing offset (left
-   * or right) can be performed. The piece at the capturing offset needs to have
-   * just moved there. If all conditions are fulfilled, this pawn accumulates a
-   * double move consisting of the capturing move and a simple step forwards.
+   * Returns how the board index changes when this pawn steps forward. White
+   * pawns move towards y = 0 and black pawns towards the other side.
    * 
-   * @param accumulator     Accumulator to add generated moves to
-   * @param capturingOffset Offset for targeting the piece to be captured
+   * @return Board index offset of a single step forward
    */
-  private boolean accumulateEnPassant(MoveAccumulator accumulator, Vector capturingOffset) {
-    // get the piece at the capture position and make sure it's a pawn we can
-    // capture
-    Position from = accumulator.getPosition();
-    GameState gameState = accumulator.getGameState();
-    Position capturePosition = Position.fromOffset(from, capturingOffset);
-    Piece capturePiece = gameState.getPieceAt(capturePosition);
-    if (!(canReplacePiece(capturePiece) && capturePiece instanceof PawnPiece)) {
-      return true;
-    }
-    PawnPiece capturePawn = (PawnPiece) capturePiece;
-
-    // check that this pawn just moved there with a double move
-    Move capturePawnLastMove = capturePawn.lastMove(accumulator);
-    if (capturePawnLastMove != null && capturePawnLastMove.isLatestMoveOf(gameState)
-        && capturePawnLastMove.hasMoveType(MoveType.PAWN_DOUBLE)) {
-      // construct an en passe capturing move,
-      // we can expect the square behind the captured piece to be free since it just
-      // left that square in the last move
-      Position afterCaptureStep = Position.fromOffset(capturePosition,
-          OffsetPatterns.FORWARD_STEP.getDirectional(color));
-      return accumulator.addMove(new DoubleMove(new CapturingMove(from, capturePosition),
-          new Movement(capturePosition, afterCaptureStep), from, afterCaptureStep));
-    }
-    return true;
+  private int getForwardStep() {
+    return color == Color.WHITE ? -Constants.BOARD_SIZE : Constants.BOARD_SIZE;
   }
 
   /**
-   * Accumulates all possible promotion moves if at the right position. The check
-   * for a promotion being necessary needs to have happened beforehand.
+   * Checks if this pawn is promoted when moving to the given square.
    * 
-   * @param accumulator Accumulator to add found moves to
-   * @param baseMove    Move to encapsulate in the promotion move
-   * @return If more moves should be generated
+   * @param boardIndex Board index of the target square
+   * @return If the square is on the last rank for this pawn
    */
-  private boolean accumulatePromotions(MoveAccumulator accumulator, Movement baseMove) {
-    for (MoveType promotionType : MoveType.PROMOTION_TYPES) {
-      if (!accumulator.addMove(new PromotionMove(baseMove, promotionType))) {
-        return false;
-      }
-    }
-    return true;
+  private boolean isPromotionSquare(int boardIndex) {
+    return boardIndex / Constants.BOARD_SIZE == (color == Color.WHITE ? 0 : Constants.BOARD_SIZE - 1);
   }
 
   /**
-   * Checks if the target location can be moved to. If the move there is possible
-   * it's added to the moves collection. If there is a piece at the target square,
-   * it can only be captured if a capturing offset is being checked (enabled
-   * through the isCapturing flag).
+   * Checks if an en passant capture can be performed. The piece next to this
+   * pawn needs to have just moved there with a double step, which means its file
+   * is the en passant file of the game state. If all conditions are fulfilled,
+   * this pawn accumulates the capture that moves it behind the captured pawn.
    * 
    * @param accumulator Accumulator to add generated moves to
-   * @param offset      Relative movement to the target field as a flip vector
-   * @param moveType    Type of the move to create, used for later identification
-   *                    of double moves
-   * @param isCapturing If we are accumulating a capturing more or not
-   * @return true if a move was added and more moves can be produced
+   * @param from        Board index of this pawn
+   * @return If more moves should be generated
    */
-  private boolean accumulatePawnStep(MoveAccumulator accumulator, FlipVector offset, MoveType moveType,
-      boolean isCapturing) {
-    Position from = accumulator.getPosition();
-    Position target = Position.fromOffset(from, offset.getDirectional(color));
-    if (target.outOfBounds()) {
-      return false;
+  private boolean accumulateEnPassant(MoveAccumulator accumulator, int from) {
+    int enPassantFile = accumulator.getGameState().getEnPassantFile();
+    int x = from % Constants.BOARD_SIZE;
+    if (enPassantFile < 0 || Math.abs(x - enPassantFile) != 1) {
+      return true;
+    }
+
+    // make sure the piece next to this pawn is a pawn we can capture
+    int captureIndex = Position.getBoardIndex(enPassantFile, from / Constants.BOARD_SIZE);
+    Piece capturePiece = accumulator.getBoard().getPieceAt(captureIndex);
+    if (capturePiece == null || capturePiece.getType() != PieceType.PAWN || capturePiece.getColor() == color) {
+      return true;
     }
 
-    // only allow capturing and non-capturing moves with their respective offsets
-    Piece targetPiece = accumulator.getGameState().getPieceAt(target);
-    if (isCapturing ? targetPiece != null && targetPiece.getColor() != color : targetPiece == null) {
-      Movement move = constructMovement(from, target, targetPiece);
+    // we can expect the square behind the captured piece to be free since it just
+    // left that square in the last move
+    return accumulator.addMove(MoveEncoding.encodeEnPassant(from, captureIndex + getForwardStep()));
+  }
 
-      // add as promotion if necessary or as a normal otherwise
-      if (OffsetPatterns.PROMOTION_RANKS.get(color) == target.getY()) {
-        return accumulatePromotions(accumulator, move);
-      } else {
-        move.setMoveType(moveType);
-        accumulator.addMove(move);
-        return true;
+  /**
+   * Accumulates a move of this pawn to the given target. Moves to the last rank
+   * are accumulated as all possible promotion moves instead.
+   * 
+   * @param accumulator  Accumulator to add found moves to
+   * @param from         Board index of this pawn
+   * @param target       Board index of the target square
+   * @param moveType     Type of the move if it's not a promotion
+   * @param capturedType Type of the captured piece, null if nothing is captured
+   * @return If more moves should be generated
+   */
+  private boolean accumulatePawnMove(MoveAccumulator accumulator, int from, int target, MoveType moveType,
+      PieceType capturedType) {
+    if (!isPromotionSquare(target)) {
+      return accumulator.addMove(MoveEncoding.encode(from, target, moveType, capturedType));
+    }
+    for (MoveType promotionType : MoveType.PROMOTION_TYPES) {
+      if (!accumulator.addMove(MoveEncoding.encode(from, target, promotionType, capturedType))) {
+        return false;
       }
     }
-    return false;
+    return true;
   }
 
   /**
@@ -125,60 +103,62 @@ public class PawnPiece extends HistoryPiece {
    * given accumulator.
    * 
    * @param accumulator Accumulator to add found moves to
+   * @param from        Board index of this pawn
    * @return If more moves should be generated
    */
-  private boolean accumulateCapturing(MoveAccumulator accumulator) {
+  private boolean accumulateCapturing(MoveAccumulator accumulator, int from) {
     // accumulate the diagonal capturing moves
-    for (FlipVector captureVector : OffsetPatterns.FORWARD_CAPTURE) {
-      accumulatePawnStep(accumulator, captureVector, MoveType.PAWN_SIMPLE, true);
-      if (!accumulator.generateMore()) {
+    Board board = accumulator.getBoard();
+    long targets = AttackTables.getPawnAttacks(color, from) & board.getColorBits(color.getOpposing());
+    while (targets != 0) {
+      int target = Long.numberOfTrailingZeros(targets);
+      if (!accumulatePawnMove(accumulator, from, target, MoveType.PAWN_SIMPLE, board.getPieceAt(target).getType())) {
         return false;
       }
+      targets &= targets - 1;
     }
 
     // if at the right y position (rank), accumulate en passant moves
-    if (accumulator.getPosition().getY() == (color == Color.WHITE ? 3 : 4)) {
-      for (Vector capturingOffset : OffsetPatterns.EN_PASSANT) {
-        if (!accumulateEnPassant(accumulator, capturingOffset)) {
-          return false;
-        }
-      }
+    if (from / Constants.BOARD_SIZE == (color == Color.WHITE ? 3 : 4)) {
+      return accumulateEnPassant(accumulator, from);
     }
     return true;
   }
 
   /**
-   * Finds and accumulating normal non-capturing moves for this pawn and adds them
-   * to the accumulator.
+   * Finds and accumulates the non-capturing moves of this pawn. If the
+   * accumulator doesn't want non-attacking moves, only promotions are
+   * accumulated since they change the material on the board just like captures.
    * 
    * @param accumulator Accumulator to add found moves to
+   * @param from        Board index of this pawn
    * @return If more moves should be generated
    */
-  private boolean accumulateNonCapturing(MoveAccumulator accumulator) {
-    // accumulate the two vertical non-capturing moves
-    boolean canMoveForward = accumulatePawnStep(accumulator, OffsetPatterns.FORWARD_STEP, MoveType.PAWN_SIMPLE, false);
-    if (!accumulator.generateMore()) {
+  private boolean accumulateNonCapturing(MoveAccumulator accumulator, int from) {
+    Board board = accumulator.getBoard();
+    int target = from + getForwardStep();
+    if (board.getPieceAt(target) != null) {
+      return true;
+    }
+    if (!accumulator.generateNonAttacking()) {
+      return !isPromotionSquare(target) || accumulatePawnMove(accumulator, from, target, MoveType.PAWN_SIMPLE, null);
+    }
+    if (!accumulatePawnMove(accumulator, from, target, MoveType.PAWN_SIMPLE, null)) {
       return false;
     }
 
     // only check the double step move if the single step move is not obstructed
-    if (canMoveForward && !hasMoved(accumulator)) {
-      accumulatePawnStep(accumulator, OffsetPatterns.DOUBLE_FORWARD, MoveType.PAWN_DOUBLE, false);
-      if (!accumulator.generateMore()) {
-        return false;
-      }
+    // and this pawn is still on its starting rank
+    int doubleTarget = target + getForwardStep();
+    if (from / Constants.BOARD_SIZE == (color == Color.WHITE ? 6 : 1) && board.getPieceAt(doubleTarget) == null) {
+      return accumulator.addMove(MoveEncoding.encode(from, doubleTarget, MoveType.PAWN_DOUBLE, null));
     }
     return true;
   }
 
   @Override
   boolean accumulateMoves(MoveAccumulator accumulator) {
-    // accumulate non capturing moves if necessary
-    if (accumulator.generateNonAttacking() && !accumulateNonCapturing(accumulator)) {
-      return false;
-    }
-
-    // also accumulate the different types of capturing moves
-    return accumulateCapturing(accumulator);
+    int from = accumulator.getPosition().getBoardIndex();
+    return accumulateNonCapturing(accumulator, from) && accumulateCapturing(accumulator, from);
   }
 }
@@ -1,17 +1,10 @@
 package schach.game.pieces;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Set;
-
 import schach.common.Color;
-import schach.common.Constants;
 import schach.common.Position;
-import schach.common.Utils;
-import schach.common.Vector;
 import schach.game.accumulators.MoveAccumulator;
-import schach.game.accumulators.CaptureTestAccumulator;
-import schach.game.moves.CapturingMove;
+import schach.game.moves.MoveEncoding;
+import schach.game.moves.MoveType;
 import schach.game.moves.Movement;
 import schach.game.state.Board;
 import schach.game.state.GameState;
@@ -30,77 +23,13 @@ import schach.game.state.GameState;
 public abstract class Piece {
   final Color color;
 
-  private Piece replacedPiece;
-  public PieceType type;
-
   /**
-   * A common collection of the different offsets used to search for possible
-   * moves a piece can make. These collections of vectors are iterated by the
-   * different piece subclasses and passed to the methods for finding moves in a
-   * straight line or as jumps.
+   * The piece this piece replaced when it was placed by a promotion. This is
+   * only set once when the piece is placed and kept after the promotion is
+   * reversed so that pieces can be shared between copies of a game state.
    */
-  static final class OffsetPatterns {
-    /**
-     * The movements a knight can make in any direction
-     */
-    public static final Collection<Vector> KNIGHT = Set.of(new Vector(1, 2), new Vector(-1, -2), new Vector(-1, 2),
-        new Vector(1, -2), new Vector(2, 1), new Vector(-2, -1), new Vector(-2, 1), new Vector(2, -1));
-
-    /**
-     * Orthogonal movements (up/down and right/left) that a rook can make
-     */
-    public static final Collection<Vector> ORTHOGONAL = Set.of(new Vector(0, 1), new Vector(0, -1), new Vector(1, 0),
-        new Vector(-1, 0));
-
-    /**
-     * Diagonal movements that a bishop can make
-     */
-    public static final Collection<Vector> DIAGONAL = Set.of(new Vector(1, 1), new Vector(-1, 1), new Vector(1, -1),
-        new Vector(-1, -1));
-
-    /**
-     * Orthogonal and diagonal movements combined result in movements in any
-     * direction. The king and the queen can make these movements.
-     */
-    public static final Collection<Vector> AROUND = Utils.concatCollections(ORTHOGONAL, DIAGONAL);
-
-    /**
-     * The position of the captured piece relative to the moving piece in an en
-     * passant capture. This movement is the first half of a double move that
-     * results in the moving pawn not on the square of the piece it captured.
-     */
-    public static final Collection<Vector> EN_PASSANT = Set.of(new Vector(1, 0), new Vector(-1, 0));
-
-    /**
-     * The standard movement of a pawn. Each pawn will resolve this and the
-     * following FlipVectors the regular vectors using its color since pawn's
-     * movement direction depends on which color they are.
-     */
-    public static final FlipVector FORWARD_STEP = new FlipVector(0, 1, FlipVector.VERTICAL);
-
-    /**
-     * The initial double step movement of a pawn
-     */
-    public static final FlipVector DOUBLE_FORWARD = new FlipVector(0, 2, FlipVector.VERTICAL);
-
-    /**
-     * The diagonal capturing movement of a pawn to both directions
-     */
-    public static final Collection<FlipVector> FORWARD_CAPTURE = Set.of(new FlipVector(-1, 1, FlipVector.VERTICAL),
-        new FlipVector(1, 1, FlipVector.VERTICAL));
-
-    /**
-     * Where pawn promotions need to happen for the two colors
-     */
-    public static final Map<Color, Integer> PROMOTION_RANKS = Map.of(Color.BLACK, Constants.BOARD_SIZE - 1, Color.WHITE,
-        0);
-
-    /**
-     * Prevent instances of this class
-     */
-    private OffsetPatterns() {
-    }
-  }
+  private Piece replacedPiece;
+  public PieceType type;
 
   /**
    * Constructs a new piece with the given color. The color can't be changed after
@@ -113,6 +42,30 @@ public abstract class Piece {
     this.color = color;
   }
 
+  /**
+   * Constructs a new piece of the given type and color.
+   * 
+   * @param type  Type of the new piece
+   * @param color Color of the new piece
+   * @return New piece instance
+   */
+  public static Piece create(PieceType type, Color color) {
+    switch (type) {
+      case KING:
+        return new KingPiece(color);
+      case QUEEN:
+        return new QueenPiece(color);
+      case ROOK:
+        return new RookPiece(color);
+      case BISHOP:
+        return new BishopPiece(color);
+      case KNIGHT:
+        return new KnightPiece(color);
+      default:
+        return new PawnPiece(color);
+    }
+  }
+
   /**
    * Returns the symbol for this piece using the short name (single letter) from
    * the type.
@@ -187,120 +140,41 @@ public abstract class Piece {
   }
 
   /**
-   * Checks if this piece can replace the given piece through a move (even a
-   * capturing move). Only null pieces (no piece at a square) or pieces of the
-   * opposing color can be replaced.
-   * 
-   * @param piece Piece to check for replacement
-   * @return Whether given piece can be replaced by this piece
-   */
-  boolean canReplacePiece(Piece piece) {
-    return piece == null || piece.getColor() != color;
-  }
-
-  /**
-   * Constructs a move to make this piece move to the given target position. The
-   * targetPiece is captured if not null. The targetPiece is expected to be of the
+   * Encodes a move of this piece from the origin to the target. The piece on the
+   * target square is captured if there is one. It is expected to be of the
    * opposite color and this should be made sure of before calling this method.
    * 
-   * @param from        Where this piece is moving from
-   * @param target      Target position for the new move
-   * @param targetPiece Piece on the target square if there is any
-   * @return A new move that moves this piece to the target and captures the
+   * @param board    Board the move is made on
+   * @param from     Board index of the square this piece is moving from
+   * @param target   Board index of the target square
+   * @param moveType Type of the move
+   * @return Encoded move that moves this piece to the target and captures the
    *         residing piece if necessary
    */
-  Movement constructMovement(Position from, Position target, Piece targetPiece) {
-    if (targetPiece == null) {
-      return new Movement(from, target);
-    } else {
-      return new CapturingMove(from, target);
-    }
+  static int encodeMove(Board board, int from, int target, MoveType moveType) {
+    Piece targetPiece = board.getPieceAt(target);
+    return MoveEncoding.encode(from, target, moveType, targetPiece == null ? null : targetPiece.getType());
   }
 
   /**
-   * Checks if a move from the target with the given offset is possible and adds
-   * it to the given accumulator.
+   * Adds the moves of this piece to the given target squares to the
+   * accumulator. Squares with pieces of the same color are skipped and empty
+   * squares are only used if the accumulator wants non-attacking moves.
    * 
    * @param accumulator Accumulator to add generated moves to
-   * @param offset      Relative movement to the target field
-   * @return If more moves should be generated
-   */
-  boolean accumulateJumpMove(MoveAccumulator accumulator, Vector offset) {
-    // make sure that this move doesn't go out of bounds
-    Position from = accumulator.getPosition();
-    Position target = Position.fromOffset(from, offset);
-    if (target.outOfBounds()) {
-      return true;
-    }
-
-    // if the position can be taken, construct a move to do so if possible
-    Piece targetPiece = accumulator.getGameState().getPieceAt(target);
-    if (canReplacePiece(targetPiece)) {
-      return accumulator.addMove(constructMovement(from, target, targetPiece));
-    }
-    return true;
-  }
-
-  /**
-   * Accumulates simple jump moves with a given pattern collection.
-   * 
-   * @param accumulator Accumulator to add the moves to
-   * @param patterns    Collection of patterns to generate moves with
-   * @return If more moves should be generated
-   */
-  boolean processJumpPatterns(MoveAccumulator accumulator, Collection<Vector> patterns) {
-    for (Vector offset : patterns) {
-      if (!accumulateJumpMove(accumulator, offset)) {
-        return false;
-      }
-    }
-    return true;
-  }
-
-  /**
-   * Checks if this piece can move to the squares starting at the given position
-   * and adds all resulting moves to the provided accumulator. The first move
-   * check starts with one step increment. All squares in the ray are checked for
-   * obstacles and accumulation of moves stops when a obstacle is found.
-   * 
-   * @param accumulator Accumulator to add generated moves to
-   * @param step        Movement of each step
-   * @return If more moves should be generated
-   */
-  boolean accumulateRayMoves(MoveAccumulator accumulator, Vector step) {
-    // iterate until we find an obstacle or the edge# of the board
-    Position from = accumulator.getPosition();
-    Position target = from;
-    while (true) {
-      // check the move of this piece to the current position in the ray
-      target = Position.fromOffset(target, step);
-      if (target.outOfBounds()) {
-        return true;
-      }
-      Piece targetPiece = accumulator.getGameState().getPieceAt(target);
-      if (canReplacePiece(targetPiece) && !accumulator.addMove(constructMovement(from, target, targetPiece))) {
-        return false;
-      }
-
-      // stop advancing the ray if we found any piece (obstacle)
-      if (targetPiece != null) {
-        return true;
-      }
-    }
-  }
-
-  /**
-   * Accumulates simple ray moves with a given pattern collection
-   * 
-   * @param accumulator Accumulator to add the moves to
-   * @param patterns    Collection of patterns to generate moves with
+   * @param targets     Bitboard of the squares this piece can jump to
    * @return If more moves should be generated
    */
-  boolean processRayPatterns(MoveAccumulator accumulator, Collection<Vector> patterns) {
-    for (Vector stepOffset : patterns) {
-      if (!accumulateRayMoves(accumulator, stepOffset)) {
+  boolean accumulateTargets(MoveAccumulator accumulator, long targets) {
+    Board board = accumulator.getBoard();
+    int from = accumulator.getPosition().getBoardIndex();
+    targets &= accumulator.generateNonAttacking() ? ~board.getColorBits(color)
+        : board.getColorBits(color.getOpposing());
+    while (targets != 0) {
+      if (!accumulator.addMove(encodeMove(board, from, Long.numberOfTrailingZeros(targets), MoveType.UNSPECIFIED))) {
         return false;
       }
+      targets &= targets - 1;
     }
     return true;
   }
@@ -387,10 +261,6 @@ public abstract class Piece {
    * @return Result of the query if this piece can be captured there
    */
   public boolean isAttackedLocally(GameState gameState, Position current) {
-    // accumulate moves using a test accumulator that lazily looks for moves
-    // attacking the position of this piece
-    CaptureTestAccumulator testAccumulator = gameState.accumulateAllMoves(new CaptureTestAccumulator(current),
-        color.getOpposing());
-    return testAccumulator.conditionIsSatisfied();
+    return gameState.getBoard().isSquareAttacked(current, color.getOpposing());
   }
 }
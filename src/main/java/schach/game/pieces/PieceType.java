@@ -65,6 +65,21 @@ public enum PieceType {
     return shortName;
   }
 
+  /**
+   * Returns the piece type with the given short name.
+   * 
+   * @param shortName Short name of the piece type in lower case
+   * @return Piece type with this short name, null if there is none
+   */
+  public static PieceType fromShortName(String shortName) {
+    for (PieceType type : values()) {
+      if (type.shortName.equals(shortName)) {
+        return type;
+      }
+    }
+    return null;
+  }
+
   public String getFullName() {
     return fullName;
   }
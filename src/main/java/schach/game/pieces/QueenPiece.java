@@ -20,6 +20,9 @@ public class QueenPiece extends Piece {
 
   @Override
   boolean accumulateMoves(MoveAccumulator accumulator) {
-    return processRayPatterns(accumulator, OffsetPatterns.AROUND);
+    int from = accumulator.getPosition().getBoardIndex();
+    long occupancy = accumulator.getBoard().getOccupancy();
+    return accumulateTargets(accumulator,
+        AttackTables.getRookAttacks(from, occupancy) | AttackTables.getBishopAttacks(from, occupancy));
   }
 }
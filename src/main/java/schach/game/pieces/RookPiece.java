@@ -20,6 +20,7 @@ public class RookPiece extends CastlingPiece {
 
   @Override
   boolean accumulateMoves(MoveAccumulator accumulator) {
-    return processRayPatterns(accumulator, OffsetPatterns.ORTHOGONAL);
+    int from = accumulator.getPosition().getBoardIndex();
+    return accumulateTargets(accumulator, AttackTables.getRookAttacks(from, accumulator.getBoard().getOccupancy()));
   }
 }
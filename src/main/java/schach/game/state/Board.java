@@ -1,22 +1,21 @@
 package schach.game.state;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.EnumMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 
 import schach.common.Color;
+import schach.common.Constants;
 import schach.common.Position;
+import schach.game.moves.MoveEncoding;
+import schach.game.moves.MoveType;
 import schach.game.moves.Movement;
+import schach.game.pieces.AttackTables;
 import schach.game.pieces.Piece;
 import schach.game.pieces.PieceComparator;
 import schach.game.pieces.PieceType;
-import schach.game.pieces.HistoryPiece;
 import schach.game.pieces.BishopPiece;
 import schach.game.pieces.KingPiece;
 import schach.game.pieces.KnightPiece;
@@ -28,6 +27,12 @@ import schach.game.pieces.RookPiece;
  * Models the pieces on the board and the positions of the pieces. This also
  * stores the captured pieces. The board does not know about the state of the
  * game or what moves can be made.
+ * 
+ * The pieces are stored twice: An array indexed by board index (a mailbox)
+ * answers what piece is on a given square and a set of bitboards answers which
+ * squares are occupied by a certain color or type of piece. Bit n of a bitboard
+ * corresponds to the square with the board index n. Both representations are
+ * only ever changed together through putPiece and takePiece.
  */
 public class Board {
   /**
@@ -36,20 +41,142 @@ public class Board {
    */
   private static final int INITIAL_PIECE_AMOUNT = 32;
 
+  /**
+   * Board indexes of the king starting squares for each castling right. The
+   * castling rights are ordered by color index and then kingside before
+   * queenside. Castling right n is bit n in the castling rights bit set.
+   */
+  private static final int[] CASTLING_KING_SQUARES = { 4, 4, 60, 60 };
+
+  /**
+   * Board indexes of the rook starting squares for each castling right.
+   */
+  private static final int[] CASTLING_ROOK_SQUARES = { 7, 0, 63, 56 };
+
+  /**
+   * Bit set of all castling rights.
+   */
+  static final int ALL_CASTLING_RIGHTS = 0b1111;
+
+  /**
+   * Bitboard of all squares involved in castling rights. The castling rights only
+   * change if the piece on one of these squares changes.
+   */
+  private static final long CASTLING_SQUARES = squareBit(4) | squareBit(7) | squareBit(0) | squareBit(60)
+      | squareBit(63) | squareBit(56);
+
+  /**
+   * Bit set of the castling rights that involve the square for each board index.
+   * These rights are lost when the piece on the square moves or is captured.
+   */
+  private static final int[] SQUARE_CASTLING_RIGHTS = new int[Constants.SQUARE_AMOUNT];
+
+  static {
+    for (int right = 0; right < CASTLING_ROOK_SQUARES.length; right++) {
+      SQUARE_CASTLING_RIGHTS[CASTLING_KING_SQUARES[right]] |= 1 << right;
+      SQUARE_CASTLING_RIGHTS[CASTLING_ROOK_SQUARES[right]] |= 1 << right;
+    }
+  }
+
+  /**
+   * How many castling rights the stack of previous castling rights has room for
+   * initially. It only grows in long games with many moves on castling squares.
+   */
+  private static final int INITIAL_CASTLING_HISTORY_CAPACITY = 64;
+
+  /**
+   * Bitboard of the dark squares. These are the squares whose coordinates add up
+   * to an odd number. A bishop always stays on squares of the same color.
+   */
+  private static final long DARK_SQUARES = 0x55AA55AA55AA55AAL;
+
   private final GameState gameState;
 
-  private final Map<Integer, Piece> pieces = new HashMap<>((int) (INITIAL_PIECE_AMOUNT / 0.75 + 1));
-  private final Deque<Piece> capturedPieces = new LinkedList<>();
+  /**
+   * The piece on each square by board index, null for empty squares.
+   */
+  private final Piece[] squares = new Piece[Constants.SQUARE_AMOUNT];
+
+  /**
+   * Bitboards of the squares occupied by each color, indexed by the color index.
+   */
+  private final long[] colorBits = new long[Color.AMOUNT];
+
+  /**
+   * Bitboards of the squares occupied by each type of piece, indexed by the
+   * ordinal of the piece type.
+   */
+  private final long[] typeBits = new long[PieceType.amount];
+
+  /**
+   * Bitboard of all occupied squares.
+   */
+  private long occupancy;
+
+  /**
+   * Bit set of the castling rights. A castling right exists as long as both the
+   * king and the rook of that side haven't moved yet. It is removed when a piece
+   * moves from or to one of their starting squares or the piece on it is
+   * captured. This doesn't check if castling is currently possible.
+   */
+  private int castlingRights;
+
+  /**
+   * Stack of the castling rights before each movement or capture that changed a
+   * castling square. Reversing the movement or capture pops the castling rights
+   * from here since removed rights can't be recomputed from the pieces.
+   */
+  private int[] castlingHistory = new int[INITIAL_CASTLING_HISTORY_CAPACITY];
+
+  /**
+   * How many castling rights are on the stack of previous castling rights.
+   */
+  private int castlingHistorySize;
 
   /**
-   * This stores the move history for the history pieces individually so their
-   * move indexes can be looked up when needed. Roughly estimate the number of
-   * history pieces initially on the board.
+   * Zobrist hash of the piece placement and the castling rights. This is updated
+   * incrementally whenever a piece is put on or taken off a square.
    */
-  private final Map<HistoryPiece, Deque<Movement>> pieceMoveHistory = new HashMap<>(
-      (int) ((INITIAL_PIECE_AMOUNT / 2 + 6) / 0.75 + 1));
+  private long hash;
 
-  private final Map<Color, Position> kingPositions = new EnumMap<>(Color.class);
+  /**
+   * Sum of the scores of the pieces of each color, indexed by the color index.
+   * This is updated incrementally like the hash so that evaluating the board
+   * doesn't need to look at every piece.
+   */
+  private final int[] scores = new int[Color.AMOUNT];
+
+  /**
+   * Stack of the captured pieces with the last captured piece on top. It grows
+   * if more pieces are captured than there are on the starting board, which can
+   * only happen in game states set up with extra pieces.
+   */
+  private Piece[] capturedPieces = new Piece[INITIAL_PIECE_AMOUNT];
+
+  /**
+   * How many pieces are on the stack of captured pieces.
+   */
+  private int capturedAmount;
+
+  /**
+   * Pieces that encoded promotions put on the board, indexed by color index and
+   * piece type ordinal. They are created once per board and shared with copies
+   * so that the search doesn't create a new piece for every promotion it tries.
+   * Since pieces only represent an identity, the same piece can stand on the
+   * board more than once while the search looks at several promotions.
+   */
+  private Piece[] promotionPieces;
+
+  /**
+   * Stack of the pawns replaced by encoded promotions with the last promoted
+   * pawn on top. Reversing an encoded promotion puts the pawn back from here.
+   */
+  private Piece[] promotedPawns = new Piece[Constants.BOARD_SIZE * Color.AMOUNT];
+
+  /**
+   * How many pawns are on the stack of promoted pawns.
+   */
+  private int promotedAmount;
 
   /**
    * Constructs a new board with the starting positions. Simple initialization is
@@ -82,18 +209,278 @@ public class Board {
       placeNewPiece(x, 1, new PawnPiece(Color.BLACK));
       placeNewPiece(x, 6, new PawnPiece(Color.WHITE));
     }
+    setCastlingRights(ALL_CASTLING_RIGHTS);
+
+    promotionPieces = new Piece[Color.AMOUNT * PieceType.amount];
+    for (Color color : Color.values()) {
+      for (MoveType promotionType : MoveType.PROMOTION_TYPES) {
+        PieceType type = promotionType.getPromotionPieceType();
+        promotionPieces[color.getIndex() * PieceType.amount + type.ordinal()] = Piece.create(type, color);
+      }
+    }
+  }
+
+  /**
+   * Constructs a copy of the given board for a copied game state. The pieces are
+   * shared but the placement, the captured pieces and the castling rights are
+   * copied.
+   * 
+   * @param gameState Game state to set as the parent
+   * @param original  Board to copy
+   */
+  Board(GameState gameState, Board original) {
+    this.gameState = gameState;
+    System.arraycopy(original.squares, 0, squares, 0, squares.length);
+    System.arraycopy(original.colorBits, 0, colorBits, 0, colorBits.length);
+    System.arraycopy(original.typeBits, 0, typeBits, 0, typeBits.length);
+    occupancy = original.occupancy;
+    castlingRights = original.castlingRights;
+    hash = original.hash;
+    System.arraycopy(original.scores, 0, scores, 0, scores.length);
+    capturedPieces = Arrays.copyOf(original.capturedPieces, original.capturedPieces.length);
+    capturedAmount = original.capturedAmount;
+    castlingHistory = Arrays.copyOf(original.castlingHistory, original.castlingHistory.length);
+    castlingHistorySize = original.castlingHistorySize;
+    promotionPieces = original.promotionPieces;
+    promotedPawns = Arrays.copyOf(original.promotedPawns, original.promotedPawns.length);
+    promotedAmount = original.promotedAmount;
+  }
+
+  /**
+   * Returns the bitboard with a single bit set for the given board index.
+   * 
+   * @param boardIndex Board index of the square
+   * @return Bitboard containing only the given square
+   */
+  public static long squareBit(int boardIndex) {
+    return 1L << boardIndex;
   }
 
   /**
-   * Returns an unmodifiable map view of the pieces on this board for iterating
-   * over them but not modification.
+   * Returns an unmodifiable map of the pieces on this board by board index for
+   * iterating over them but not modification. The map is built on every call so
+   * this should not be used in code that runs for every searched move. Iterate
+   * the bits of getOccupancy instead.
    * 
    * @return Unmodifiable map of the contained pieces
    */
   public Map<Integer, Piece> getPieces() {
+    Map<Integer, Piece> pieces = new HashMap<>((int) (INITIAL_PIECE_AMOUNT / 0.75 + 1));
+    for (long remaining = occupancy; remaining != 0; remaining &= remaining - 1) {
+      int boardIndex = Long.numberOfTrailingZeros(remaining);
+      pieces.put(boardIndex, squares[boardIndex]);
+    }
     return Collections.unmodifiableMap(pieces);
   }
 
+  /**
+   * Returns the bitboard of all occupied squares.
+   * 
+   * @return Bitboard with the bits of all occupied squares set
+   */
+  public long getOccupancy() {
+    return occupancy;
+  }
+
+  /**
+   * Returns the bitboard of the squares occupied by pieces of the given color.
+   * 
+   * @param color Color of the pieces
+   * @return Bitboard of the pieces with that color
+   */
+  public long getColorBits(Color color) {
+    return colorBits[color.getIndex()];
+  }
+
+  /**
+   * Returns the bitboard of the squares occupied by pieces of the given type
+   * regardless of their color.
+   * 
+   * @param type Type of the pieces
+   * @return Bitboard of the pieces with that type
+   */
+  public long getTypeBits(PieceType type) {
+    return typeBits[type.ordinal()];
+  }
+
+  /**
+   * Returns the bitboard of the squares occupied by pieces of the given color and
+   * type.
+   * 
+   * @param color Color of the pieces
+   * @param type  Type of the pieces
+   * @return Bitboard of the pieces with that color and type
+   */
+  public long getPieceBits(Color color, PieceType type) {
+    return colorBits[color.getIndex()] & typeBits[type.ordinal()];
+  }
+
+  /**
+   * Returns the Zobrist hash of the pieces on this board and their castling
+   * rights. The game state combines this with the rest of its state.
+   * 
+   * @return Hash of the board
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Returns the sum of the scores of the pieces of the given color on this
+   * board. The score of a piece is given by the piece square tables.
+   * 
+   * @param color Color to get the score of
+   * @return Score of the pieces of the color
+   */
+  public int getScore(Color color) {
+    return scores[color.getIndex()];
+  }
+
+  /**
+   * Returns the bit set of the castling rights. Bit n is set if castling right n
+   * exists. The castling rights are ordered by color index and then kingside
+   * before queenside.
+   * 
+   * @return Bit set of castling rights
+   */
+  public int getCastlingRights() {
+    return castlingRights;
+  }
+
+  /**
+   * Computes the hash of the board from scratch. This is used to verify that the
+   * incrementally updated hash is correct.
+   * 
+   * @return Freshly computed hash of the board
+   */
+  long computeHash() {
+    long freshHash = Zobrist.castlingKey(castlingRights);
+    for (long remaining = occupancy; remaining != 0; remaining &= remaining - 1) {
+      int boardIndex = Long.numberOfTrailingZeros(remaining);
+      freshHash ^= Zobrist.pieceKey(squares[boardIndex], boardIndex);
+    }
+    return freshHash;
+  }
+
+  /**
+   * Checks if a castling right involving the given square still exists. The
+   * square is expected to be a starting square of a king or rook of the color
+   * that the right is asked for.
+   * 
+   * @param boardIndex Board index of the square to check
+   * @return If the piece on the square can still castle with at least one side
+   */
+  public boolean hasCastlingRight(int boardIndex) {
+    return (castlingRights & SQUARE_CASTLING_RIGHTS[boardIndex]) != 0;
+  }
+
+  /**
+   * Checks if the piece on the given square is a piece of the given type and
+   * color.
+   * 
+   * @param boardIndex Board index of the square to check
+   * @param type       Type of castling piece to look for
+   * @param colorIndex Index of the color the piece needs to have
+   * @return If the square has a castling piece of the type and color
+   */
+  private boolean hasCastlingPiece(int boardIndex, PieceType type, int colorIndex) {
+    Piece piece = squares[boardIndex];
+    return piece != null && piece.getType() == type && piece.getColor().getIndex() == colorIndex;
+  }
+
+  /**
+   * Replaces the castling rights and updates the hash. This is used when setting
+   * up a game state. Rights whose king or rook isn't on its starting square are
+   * left out since they could never be used.
+   * 
+   * @param rights Bit set of the castling rights to set
+   */
+  void setCastlingRights(int rights) {
+    for (int right = 0; right < CASTLING_ROOK_SQUARES.length; right++) {
+      int colorIndex = right / 2;
+      if (!hasCastlingPiece(CASTLING_KING_SQUARES[right], PieceType.KING, colorIndex)
+          || !hasCastlingPiece(CASTLING_ROOK_SQUARES[right], PieceType.ROOK, colorIndex)) {
+        rights &= ~(1 << right);
+      }
+    }
+    replaceCastlingRights(rights);
+  }
+
+  /**
+   * Replaces the castling rights and updates their part of the hash.
+   * 
+   * @param rights New bit set of the castling rights
+   */
+  private void replaceCastlingRights(int rights) {
+    hash ^= Zobrist.castlingKey(castlingRights ^ rights);
+    castlingRights = rights;
+  }
+
+  /**
+   * Removes the castling rights that involve one of the changed squares.
+   * 
+   * @param changedSquares Bitboard of the squares that were changed
+   */
+  private void removeCastlingRights(long changedSquares) {
+    for (long remaining = changedSquares & CASTLING_SQUARES; remaining != 0; remaining &= remaining - 1) {
+      replaceCastlingRights(castlingRights & ~SQUARE_CASTLING_RIGHTS[Long.numberOfTrailingZeros(remaining)]);
+    }
+  }
+
+  /**
+   * Saves the castling rights on the stack of previous castling rights and then
+   * removes the ones that involve one of the changed squares. Nothing is saved if
+   * none of the squares are castling squares.
+   * 
+   * @param changedSquares Bitboard of the squares that are changed by a movement
+   *                       or capture
+   */
+  private void pushCastlingRights(long changedSquares) {
+    if ((changedSquares & CASTLING_SQUARES) != 0) {
+      if (castlingHistorySize == castlingHistory.length) {
+        castlingHistory = Arrays.copyOf(castlingHistory, castlingHistorySize * 2);
+      }
+      castlingHistory[castlingHistorySize++] = castlingRights;
+      removeCastlingRights(changedSquares);
+    }
+  }
+
+  /**
+   * Restores the castling rights that were saved by pushCastlingRights for the
+   * same squares when the movement or capture is reversed.
+   * 
+   * @param changedSquares Bitboard of the squares that were changed by the
+   *                       movement or capture
+   */
+  private void popCastlingRights(long changedSquares) {
+    if ((changedSquares & CASTLING_SQUARES) != 0) {
+      replaceCastlingRights(castlingHistory[--castlingHistorySize]);
+    }
+  }
+
+  /**
+   * Returns how many pieces there are on the board.
+   * 
+   * @return Amount of pieces on the board
+   */
+  public int getPieceAmount() {
+    return Long.bitCount(occupancy);
+  }
+
+  /**
+   * Returns how many pieces of the given color and type are on this board. The
+   * count is taken from the bitboards which are kept up to date when pieces are
+   * captured, promoted and restored, so this is cheap enough to be used by the
+   * evaluation.
+   * 
+   * @param color Color of the pieces
+   * @param type  Type of the pieces
+   * @return Number of pieces of the color and type
+   */
+  public int getPieceAmount(Color color, PieceType type) {
+    return Long.bitCount(getPieceBits(color, type));
+  }
+
   /**
    * Checks if the piece at the given position is being attacked. Which pieces do
    * the attacking depends on the color of the piece at the position.
@@ -119,49 +506,64 @@ public class Board {
    * @return If the king with the given color is being attacked
    */
   public boolean kingAttacked(Color color) {
-    return isAttackedAt(getKingPositionFor(color));
+    long kingBits = getPieceBits(color, PieceType.KING);
+    return kingBits != 0
+        && isSquareAttacked(Position.fromBoardIndex(Long.numberOfTrailingZeros(kingBits)), color.getOpposing());
   }
 
   /**
-   * Checks if there is too little material on the board for a checkmate.
+   * Checks if a square is attacked by any piece of the given color. Instead of
+   * generating the moves of all attacking pieces, this looks outward from the
+   * square for pieces that could attack it: pawns on the diagonals, knights, a
+   * king next to it and sliding pieces at the end of the rays, which are looked
+   * up with the occupancy of the board. En passant is not considered
+   * since it only attacks pawns and not the square they're on.
+   * 
+   * @param position Position of the square to check
+   * @param byColor  Color of the attacking pieces
+   * @return If a piece of the given color attacks the square
+   */
+  public boolean isSquareAttacked(Position position, Color byColor) {
+    int square = position.getBoardIndex();
+
+    // a pawn of the attacking color is on one of the squares a pawn of the other
+    // color would attack from this square
+    if ((AttackTables.getPawnAttacks(byColor.getOpposing(), square) & getPieceBits(byColor, PieceType.PAWN)) != 0
+        || (AttackTables.getKnightAttacks(square) & getPieceBits(byColor, PieceType.KNIGHT)) != 0
+        || (AttackTables.getKingAttacks(square) & getPieceBits(byColor, PieceType.KING)) != 0) {
+      return true;
+    }
+
+    // a sliding piece attacks the square if it's the first piece on a matching ray
+    long queens = getPieceBits(byColor, PieceType.QUEEN);
+    return (AttackTables.getRookAttacks(square, occupancy) & (getPieceBits(byColor, PieceType.ROOK) | queens)) != 0
+        || (AttackTables.getBishopAttacks(square, occupancy) & (getPieceBits(byColor, PieceType.BISHOP) | queens)) != 0;
+  }
+
+  /**
+   * Checks if there is too little material on the board for a checkmate. The
+   * pieces are counted with the bitboards so this doesn't allocate.
    * 
    * @return If there is too little material on the board
    */
   public boolean hasInsufficientMaterial() {
-    Map<PieceType, Integer> remaining = new EnumMap<>(PieceType.class);
-    BishopPiece whiteBishop = null;
-    BishopPiece blackBishop = null;
-
-    // init with zero to prevent null pointer exceptions
-    for (PieceType type : PieceType.values()) {
-      remaining.put(type, Integer.valueOf(0));
+    // if there are too few kings or
+    int totalAmount = getPieceAmount();
+    if (totalAmount <= 2) {
+      return true;
     }
 
-    // generate a list of the remaining types of pieces
-    for (Piece piece : pieces.values()) {
-      PieceType type = piece.getType();
-      Integer count = remaining.get(type);
-      remaining.put(type, count + 1);
-
-      // register bishop pieces since they contribute to a special condition
-      if (piece instanceof BishopPiece) {
-        BishopPiece bishop = (BishopPiece) piece;
-        if (bishop.getColor() == Color.WHITE) {
-          whiteBishop = bishop;
-        } else {
-          blackBishop = bishop;
-        }
-      }
+    // only one bishop or only one knight
+    long bishops = typeBits[PieceType.BISHOP.ordinal()];
+    if (totalAmount == 3) {
+      return Long.bitCount(bishops) == 1 || Long.bitCount(typeBits[PieceType.KNIGHT.ordinal()]) == 1;
     }
 
-    // if there are too few kings or
-    int totalAmount = pieces.size();
-    return totalAmount <= 2
-        // only one bishop or only one knight
-        || totalAmount == 3 && (remaining.get(PieceType.BISHOP) == 1 || remaining.get(PieceType.KNIGHT) == 1)
-        // or two bishops of the same color
-        || totalAmount == 4 && whiteBishop != null && blackBishop != null
-            && whiteBishop.getSquareColor() == blackBishop.getSquareColor();
+    // or a bishop of each color on squares of the same color
+    long darkBishops = bishops & DARK_SQUARES;
+    return totalAmount == 4 && Long.bitCount(getPieceBits(Color.WHITE, PieceType.BISHOP)) == 1
+        && Long.bitCount(getPieceBits(Color.BLACK, PieceType.BISHOP)) == 1
+        && (darkBishops == 0 || darkBishops == bishops);
   }
 
   /**
@@ -172,7 +574,7 @@ public class Board {
    */
   public List<Piece> getSortedCapturedPieces() {
     // copy and sort the set of captured pieces
-    ArrayList<Piece> sortList = new ArrayList<Piece>(capturedPieces);
+    List<Piece> sortList = Arrays.asList(Arrays.copyOf(capturedPieces, capturedAmount));
     PieceComparator comparator = new PieceComparator();
     Collections.sort(sortList, comparator);
     return sortList;
@@ -186,7 +588,8 @@ public class Board {
    * @return The position of the king for the given color
    */
   public Position getKingPositionFor(Color color) {
-    return kingPositions.get(color);
+    long kingBits = getPieceBits(color, PieceType.KING);
+    return kingBits == 0 ? null : Position.fromBoardIndex(Long.numberOfTrailingZeros(kingBits));
   }
 
   /**
@@ -198,7 +601,10 @@ public class Board {
    * @return Piece found at the given position
    */
   public Piece getPieceAt(int x, int y) {
-    return pieces.get(Position.getBoardIndex(x, y));
+    if (x < 0 || y < 0 || x >= Constants.BOARD_SIZE || y >= Constants.BOARD_SIZE) {
+      return null;
+    }
+    return squares[Position.getBoardIndex(x, y)];
   }
 
   /**
@@ -209,18 +615,65 @@ public class Board {
    * @return piece found at the given position
    */
   public Piece getPieceAt(Position position) {
-    return pieces.get(position.getBoardIndex());
+    return getPieceAt(position.getX(), position.getY());
   }
 
   /**
-   * Returns the last move a history piece made. Null is it has not moved yet.
+   * Returns the piece on the square with the given board index. The index is
+   * expected to be a valid board index.
    * 
-   * @param piece Piece to check the last move of
-   * @return Last move this piece made
+   * @param boardIndex Board index of the square to query
+   * @return Piece found on the square, null if it is empty
    */
-  public Movement getPieceLastMove(HistoryPiece piece) {
-    Deque<Movement> pieceHistory = pieceMoveHistory.get(piece);
-    return pieceHistory == null ? null : pieceHistory.peek();
+  public Piece getPieceAt(int boardIndex) {
+    return squares[boardIndex];
+  }
+
+  /**
+   * Puts a piece on an empty square and updates the bitboards.
+   * 
+   * @param boardIndex Board index of the square to put the piece on
+   * @param piece      Piece to put on the square
+   */
+  private void putPiece(int boardIndex, Piece piece) {
+    long bit = squareBit(boardIndex);
+    squares[boardIndex] = piece;
+    colorBits[piece.getColor().getIndex()] |= bit;
+    typeBits[piece.getType().ordinal()] |= bit;
+    occupancy |= bit;
+    hash ^= Zobrist.pieceKey(piece, boardIndex);
+    scores[piece.getColor().getIndex()] += PieceSquareTables.getScore(piece, boardIndex);
+  }
+
+  /**
+   * Takes the piece off the given square and updates the bitboards.
+   * 
+   * @param boardIndex Board index of the square to clear
+   * @return Piece that was on the square, null if there was none
+   */
+  private Piece takePiece(int boardIndex) {
+    Piece piece = squares[boardIndex];
+    if (piece != null) {
+      long bit = ~squareBit(boardIndex);
+      squares[boardIndex] = null;
+      colorBits[piece.getColor().getIndex()] &= bit;
+      typeBits[piece.getType().ordinal()] &= bit;
+      occupancy &= bit;
+      hash ^= Zobrist.pieceKey(piece, boardIndex);
+      scores[piece.getColor().getIndex()] -= PieceSquareTables.getScore(piece, boardIndex);
+    }
+    return piece;
+  }
+
+  /**
+   * Takes the piece off the square of the given position. Positions outside of
+   * the board never contain a piece.
+   * 
+   * @param position Position of the square to clear
+   * @return Piece that was on the square, null if there was none
+   */
+  private Piece takePiece(Position position) {
+    return position.outOfBounds() ? null : takePiece(position.getBoardIndex());
   }
 
   /**
@@ -230,16 +683,28 @@ public class Board {
    * @param position position of the piece to capture
    */
   public void capturePiece(Position position) {
-    Piece removedPiece = pieces.remove(position.getBoardIndex());
-    if (removedPiece == null) {
+    if (getPieceAt(position) == null) {
       throw new IllegalStateException(
           "The capturing of position " + position + " is illegal since there is no piece at that position.");
-    } else {
-      capturedPieces.push(removedPiece);
+    }
+    capturePiece(position.getBoardIndex());
+  }
 
-      // reset the draw move index for the limited move rule
-      gameState.notifyCapture();
+  /**
+   * Captures the piece on the square with the given board index. There is
+   * expected to be a piece on the square.
+   * 
+   * @param boardIndex Board index of the piece to capture
+   */
+  private void capturePiece(int boardIndex) {
+    if (capturedAmount == capturedPieces.length) {
+      capturedPieces = Arrays.copyOf(capturedPieces, capturedAmount * 2);
     }
+    capturedPieces[capturedAmount++] = takePiece(boardIndex);
+    pushCastlingRights(squareBit(boardIndex));
+
+    // reset the draw move index for the limited move rule
+    gameState.notifyCapture();
   }
 
   /**
@@ -249,20 +714,19 @@ public class Board {
    * @param putBackTo Position to put the piece back to
    */
   public void uncapturePiece(Position putBackTo) {
-    // we expect reversing moves to work since they it's not a user initiated action
-    pieces.put(putBackTo.getBoardIndex(), capturedPieces.pop());
+    uncapturePiece(putBackTo.getBoardIndex());
   }
 
   /**
-   * Updates the position of king pieces if the given piece is a king piece.
+   * Puts the last captured piece back on the square with the given board index.
    * 
-   * @param piece       Piece to update the position for if it's a king
-   * @param newPosition New position of the given piece
+   * @param boardIndex Board index of the square to put the piece back on
    */
-  private void updateKingPositions(Piece piece, Position newPosition) {
-    if (piece instanceof KingPiece) {
-      kingPositions.put(piece.getColor(), newPosition);
-    }
+  private void uncapturePiece(int boardIndex) {
+    // we expect reversing moves to work since they it's not a user initiated action
+    putPiece(boardIndex, capturedPieces[--capturedAmount]);
+    capturedPieces[capturedAmount] = null;
+    popCastlingRights(squareBit(boardIndex));
   }
 
   /**
@@ -274,7 +738,7 @@ public class Board {
    * @param piece New Piece to put at the position
    */
   private void placeNewPiece(int x, int y, Piece piece) {
-    placeNewPiece(new Position(x, y), piece);
+    placeNewPiece(Position.getBoardIndex(x, y), piece);
   }
 
   /**
@@ -287,19 +751,22 @@ public class Board {
    * @param piece    Piece to place at the given position
    */
   public void placeNewPiece(Position position, Piece piece) {
-    int boardIndex = position.getBoardIndex();
-    Piece presentPiece = pieces.get(boardIndex);
+    placeNewPiece(position.getBoardIndex(), piece);
+  }
+
+  /**
+   * Places or replaces a piece on the square with the given board index.
+   * 
+   * @param boardIndex Board index of the square to put the piece on
+   * @param piece      Piece to place on the square
+   */
+  private void placeNewPiece(int boardIndex, Piece piece) {
+    Piece presentPiece = takePiece(boardIndex);
     if (presentPiece != null) {
       piece.setReplacedPiece(presentPiece);
     }
-    pieces.put(boardIndex, piece);
-    if (piece instanceof BishopPiece) {
-      ((BishopPiece) piece).notifyPosition(position);
-    }
-
-    // we don't need to keep track of king positions when reversing promotions since
-    // kings are never the result of promotions
-    updateKingPositions(piece, position);
+    putPiece(boardIndex, piece);
+    removeCastlingRights(squareBit(boardIndex));
   }
 
   /**
@@ -312,7 +779,9 @@ public class Board {
    * @param position Position to remove the piece at
    */
   public void removePiece(Position position) {
-    pieces.remove(position.getBoardIndex());
+    if (takePiece(position) != null) {
+      removeCastlingRights(squareBit(position.getBoardIndex()));
+    }
   }
 
   /**
@@ -324,58 +793,112 @@ public class Board {
    * @param movement Movement to apply to the state
    */
   public void applyMovement(Movement movement) {
-    Piece piece = pieces.remove(movement.getFromPosition().getBoardIndex());
-    if (piece == null) {
+    if (getPieceAt(movement.getFromPosition()) == null) {
       // throw when illegal movement is applied
       throw new IllegalArgumentException("The movement " + movement
           + " is not legal in this game state since there is no piece at the starting position.");
     }
-    Position toPosition = movement.getToPosition();
-    pieces.put(toPosition.getBoardIndex(), piece);
-
-    // track the history for a history piece
-    if (piece instanceof HistoryPiece) {
-      HistoryPiece historyPiece = (HistoryPiece) piece;
-
-      // create a new piece history for this piece if it doesn't have one yet
-      Deque<Movement> pieceHistory = pieceMoveHistory.get(historyPiece);
-      if (pieceHistory == null) {
-        pieceHistory = new LinkedList<>(Set.of(movement));
-        pieceMoveHistory.put(historyPiece, pieceHistory);
-      } else {
-        pieceHistory.push(movement);
-      }
-    }
+    movePiece(movement.getFromPosition().getBoardIndex(), movement.getToPosition().getBoardIndex());
+  }
+
+  /**
+   * Moves the piece from one square to another empty square and removes the
+   * castling rights involving either square.
+   * 
+   * @param fromIndex Board index of the square the piece is on
+   * @param toIndex   Board index of the square to move the piece to
+   */
+  private void movePiece(int fromIndex, int toIndex) {
+    Piece piece = takePiece(fromIndex);
+    putPiece(toIndex, piece);
+    pushCastlingRights(squareBit(fromIndex) | squareBit(toIndex));
 
     // reset the draw move index for the limited move rule when a pawn moves
     if (piece instanceof PawnPiece) {
       gameState.notifyCapture();
     }
-
-    // track movement of the kings
-    updateKingPositions(piece, toPosition);
   }
 
   /**
    * Reverses the effects of the given movement on the board. The piece at the to
-   * position is moved back to the from position and the history piece entry is
-   * popped.
+   * position is moved back to the from position and the castling rights are
+   * restored.
    * 
    * @param movement Movement to reverse on the board state
    */
   public void reverseMovement(Movement movement) {
-    Piece piece = pieces.remove(movement.getToPosition().getBoardIndex());
-    Position targetPosition = movement.getFromPosition();
-    pieces.put(targetPosition.getBoardIndex(), piece);
-
-    // pop the latest entry on the history for this piece
-    if (piece instanceof HistoryPiece) {
-      // we know it has a move history stack
-      // since this movement was added to this stack when it was applied
-      pieceMoveHistory.get((HistoryPiece) piece).pop();
+    unmovePiece(movement.getFromPosition().getBoardIndex(), movement.getToPosition().getBoardIndex());
+  }
+
+  /**
+   * Moves a piece back to the square it came from and restores the castling
+   * rights from before the movement.
+   * 
+   * @param fromIndex Board index of the square the piece came from
+   * @param toIndex   Board index of the square the piece is on
+   */
+  private void unmovePiece(int fromIndex, int toIndex) {
+    putPiece(fromIndex, takePiece(toIndex));
+    popCastlingRights(squareBit(fromIndex) | squareBit(toIndex));
+  }
+
+  /**
+   * Applies an encoded move to the pieces. This does the same as applying the
+   * decoded move object but without creating any move objects or pieces.
+   * 
+   * @param move Encoded move to apply
+   */
+  public void applyMove(int move) {
+    int origin = MoveEncoding.getOrigin(move);
+    int target = MoveEncoding.getTarget(move);
+    if (MoveEncoding.isCastling(move)) {
+      movePiece(origin, target);
+      movePiece(MoveEncoding.getCastlingRookOrigin(move), MoveEncoding.getCastlingRookTarget(move));
+      return;
+    }
+
+    if (MoveEncoding.isCapture(move)) {
+      capturePiece(MoveEncoding.getCaptureIndex(move));
     }
+    movePiece(origin, target);
+
+    // replace the pawn with the shared promoted piece and remember the pawn
+    PieceType promotedType = MoveEncoding.getMoveType(move).getPromotionPieceType();
+    if (promotedType != null) {
+      Piece pawn = takePiece(target);
+      if (promotedAmount == promotedPawns.length) {
+        promotedPawns = Arrays.copyOf(promotedPawns, promotedAmount * 2);
+      }
+      promotedPawns[promotedAmount++] = pawn;
+      putPiece(target, promotionPieces[pawn.getColor().getIndex() * PieceType.amount + promotedType.ordinal()]);
+    }
+  }
 
-    // track movement of the kings
-    updateKingPositions(piece, targetPosition);
+  /**
+   * Reverses an encoded move on the pieces. The board is in the same state as
+   * before the move was applied afterwards.
+   * 
+   * @param move Encoded move to reverse
+   */
+  public void reverseMove(int move) {
+    int origin = MoveEncoding.getOrigin(move);
+    int target = MoveEncoding.getTarget(move);
+    if (MoveEncoding.isCastling(move)) {
+      unmovePiece(MoveEncoding.getCastlingRookOrigin(move), MoveEncoding.getCastlingRookTarget(move));
+      unmovePiece(origin, target);
+      return;
+    }
+
+    // put the pawn back in place of the promoted piece
+    if (MoveEncoding.getMoveType(move).isPromotion()) {
+      takePiece(target);
+      putPiece(target, promotedPawns[--promotedAmount]);
+      promotedPawns[promotedAmount] = null;
+    }
+
+    unmovePiece(origin, target);
+    if (MoveEncoding.isCapture(move)) {
+      uncapturePiece(MoveEncoding.getCaptureIndex(move));
+    }
   }
 }
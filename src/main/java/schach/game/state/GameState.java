@@ -1,22 +1,26 @@
 package schach.game.state;
 
-import java.util.Map.Entry;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import schach.common.Color;
+import schach.common.Constants;
 import schach.common.Position;
 import schach.game.accumulators.filters.LosingMoveFilter;
 import schach.game.accumulators.filters.FulfillmentFilter;
 import schach.game.accumulators.CollectionAccumulator;
 import schach.game.accumulators.MoveAccumulator;
 import schach.game.accumulators.AcceptAccumulator;
+import schach.game.accumulators.PerftAccumulator;
 import schach.game.moves.Move;
+import schach.game.moves.MoveEncoding;
+import schach.game.moves.MoveType;
 import schach.game.moves.Movement;
 import schach.game.pieces.Piece;
+import schach.game.pieces.PieceType;
 
 /**
  * The game state holds the state of the game (including a board instance) at
@@ -25,11 +29,25 @@ import schach.game.pieces.Piece;
  * concept and less the physical state.
  */
 public class GameState {
-  private MoveJournal journal = new MoveJournal(this);
-  private Board board = new Board(this);
+  private final MoveJournal journal;
+  private final Board board;
   private GameStatus status = GameStatus.NONE;
   private Color activeColor = Color.WHITE;
 
+  /**
+   * Index of the last applied move. This includes moves that are only applied
+   * temporarily and aren't in the journal. Move index 1 is the first move while
+   * move index 0 means no move has been made yet.
+   */
+  private int moveIndex;
+
+  /**
+   * How many entries the history stacks have room for initially. They grow when
+   * the game gets longer so that applying and reversing moves usually doesn't
+   * allocate anything.
+   */
+  private static final int INITIAL_HISTORY_CAPACITY = 256;
+
   /**
    * Move index that is incremented like the move index but reset when a pawn
    * moves or a piece is captured. This is used for determining when the 75 or
@@ -38,14 +56,200 @@ public class GameState {
    * 
    * We're using a stack here to make sure we can revert changes to this value.
    */
-  private Deque<Integer> drawMoveIndexes = new LinkedList<>();
+  private int[] drawMoveIndexes = new int[INITIAL_HISTORY_CAPACITY];
+
+  /**
+   * Stack of the files (x coordinates) of pawns that can be captured en passant
+   * after each applied move. A pawn can be captured en passant if it just made a
+   * double step. The file is -1 if the last move wasn't a pawn double step.
+   */
+  private int[] enPassantFiles = new int[INITIAL_HISTORY_CAPACITY];
+
+  /**
+   * Stack of the hashes of all game states of this game including the current
+   * one. Since captures and pawn moves can't be reversed, only the game states
+   * since the last reset of the draw move index can be repetitions of the
+   * current game state.
+   */
+  private long[] hashHistory = new long[INITIAL_HISTORY_CAPACITY];
+
+  /**
+   * How many entries the history stacks have. The draw move indexes, en passant
+   * files and hashes are pushed and popped together, so they all have one entry
+   * for the starting game state and one for each applied move.
+   */
+  private int historySize = 1;
+
+  /**
+   * How many entries the status cache has. This needs to be a power of two.
+   */
+  private static final int STATUS_CACHE_SIZE = 1 << 12;
+
+  /**
+   * Caches the game statuses of game states that have already been computed by
+   * their hash. Only the part of the status that depends on the moves that can
+   * be made is cached since the draw rules depend on the moves that lead to the
+   * game state. An entry is used if the key at its index is the hash.
+   */
+  private final long[] statusCacheKeys = new long[STATUS_CACHE_SIZE];
+  private final GameStatus[] statusCacheValues = new GameStatus[STATUS_CACHE_SIZE];
+
+  /**
+   * Part of the Zobrist hash that isn't covered by the board. This is the active
+   * color and the en passant file.
+   */
+  private long stateHash;
 
   /**
    * Constructs a game state. Some parts of the state that don't require a complex
    * initialization are already initialized.
    */
   public GameState() {
-    drawMoveIndexes.push(0);
+    journal = new MoveJournal(this);
+    board = new Board(this);
+    enPassantFiles[0] = -1;
+    hashHistory[0] = getHash();
+  }
+
+  /**
+   * Constructs a game state from a position in Forsyth-Edwards Notation (FEN).
+   * The halfmove clock and fullmove number fields may be omitted. Since a FEN
+   * doesn't contain the moves that lead to the position, the journal starts out
+   * empty.
+   * 
+   * @param fen Description of the game state in FEN
+   * @throws IllegalArgumentException If the FEN is malformed
+   */
+  public GameState(String fen) {
+    this();
+    String[] fields = fen.trim().split("\\s+");
+    if (fields.length < 4 || fields.length > 6) {
+      throw new IllegalArgumentException("The FEN '" + fen + "' doesn't have between four and six fields.");
+    }
+
+    setUpPieces(fields[0]);
+    setUpCastlingRights(fields[2]);
+
+    // apply the active color
+    if ("b".equals(fields[1])) {
+      activeColor = Color.BLACK;
+      stateHash ^= Zobrist.ACTIVE_COLOR_KEY;
+    } else if (!"w".equals(fields[1])) {
+      throw new IllegalArgumentException("The active color '" + fields[1] + "' is not w or b.");
+    }
+
+    // only the file of the en passant square is relevant
+    if (!"-".equals(fields[3])) {
+      int enPassantFile = fields[3].charAt(0) - 'a';
+      if (fields[3].length() != 2 || enPassantFile < 0 || enPassantFile >= Constants.BOARD_SIZE) {
+        throw new IllegalArgumentException("The en passant square '" + fields[3] + "' is invalid.");
+      }
+      enPassantFiles[0] = enPassantFile;
+      toggleEnPassantHash(enPassantFile);
+    }
+
+    // the halfmove clock is the draw move index and the fullmove number
+    // determines the move index
+    if (fields.length > 4) {
+      drawMoveIndexes[0] = Integer.parseInt(fields[4]);
+    }
+    int fullMoveNumber = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+    moveIndex = (fullMoveNumber - 1) * 2 + (activeColor == Color.BLACK ? 1 : 0);
+
+    // the hash of the starting position has changed
+    hashHistory[0] = getHash();
+
+    // the status of this game state is unknown
+    status = null;
+  }
+
+  /**
+   * Constructs a copy of the given game state. The pieces are shared since they
+   * only represent piece identities while the placement, the histories and the
+   * stacks are copied.
+   * 
+   * @param original Game state to copy
+   */
+  private GameState(GameState original) {
+    journal = new MoveJournal(this, original.journal);
+    board = new Board(this, original.board);
+    status = original.status;
+    activeColor = original.activeColor;
+    moveIndex = original.moveIndex;
+    stateHash = original.stateHash;
+    drawMoveIndexes = Arrays.copyOf(original.drawMoveIndexes, original.drawMoveIndexes.length);
+    enPassantFiles = Arrays.copyOf(original.enPassantFiles, original.enPassantFiles.length);
+    hashHistory = Arrays.copyOf(original.hashHistory, original.hashHistory.length);
+    historySize = original.historySize;
+  }
+
+  /**
+   * Constructs an independent copy of this game state. Moves that are
+   * temporarily applied, like during a search, are part of the copy too. The
+   * journal is copied so that moves can be undone and redone on the copy without
+   * affecting this game state.
+   * 
+   * @return New game state with the same pieces, history and active color
+   */
+  public GameState copy() {
+    return new GameState(this);
+  }
+
+  /**
+   * Replaces the pieces of the starting position with the pieces given by the
+   * piece placement field of a FEN.
+   * 
+   * @param placement Piece placement field with the ranks from 8 to 1
+   */
+  private void setUpPieces(String placement) {
+    for (long remaining = board.getOccupancy(); remaining != 0; remaining &= remaining - 1) {
+      board.removePiece(Position.fromBoardIndex(Long.numberOfTrailingZeros(remaining)));
+    }
+
+    // the first rank in the FEN is the rank at y = 0
+    String[] ranks = placement.split("/");
+    if (ranks.length != Constants.BOARD_SIZE) {
+      throw new IllegalArgumentException("The piece placement '" + placement + "' doesn't have 8 ranks.");
+    }
+    for (int y = 0; y < Constants.BOARD_SIZE; y++) {
+      int x = 0;
+      for (char symbol : ranks[y].toCharArray()) {
+        if (Character.isDigit(symbol)) {
+          x += symbol - '0';
+          continue;
+        }
+        PieceType type = PieceType.fromShortName(String.valueOf(Character.toLowerCase(symbol)));
+        Position position = Position.of(x, y);
+        if (type == null || position.outOfBounds()) {
+          throw new IllegalArgumentException("The rank '" + ranks[y] + "' contains an invalid piece or is too long.");
+        }
+        board.placeNewPiece(position, Piece.create(type, Character.isUpperCase(symbol) ? Color.WHITE : Color.BLACK));
+        x++;
+      }
+      if (x != Constants.BOARD_SIZE) {
+        throw new IllegalArgumentException("The rank '" + ranks[y] + "' doesn't have 8 squares.");
+      }
+    }
+  }
+
+  /**
+   * Sets the castling rights given by the castling availability field of a FEN.
+   * Rights of kings and rooks that aren't on their starting squares are ignored.
+   * 
+   * @param castling Castling availability field
+   */
+  private void setUpCastlingRights(String castling) {
+    int rights = 0;
+    for (Color color : Color.values()) {
+      // the castling rights are ordered by color index and kingside first
+      if (castling.contains(color.toColorCase("k"))) {
+        rights |= 1 << color.getIndex() * 2;
+      }
+      if (castling.contains(color.toColorCase("q"))) {
+        rights |= 1 << color.getIndex() * 2 + 1;
+      }
+    }
+    board.setCastlingRights(rights);
   }
 
   public Color getActiveColor() {
@@ -60,6 +264,86 @@ public class GameState {
     return journal;
   }
 
+  /**
+   * Returns the Zobrist hash of this game state. Game states with the same pieces
+   * on the same squares, the same active color, castling rights and en passant
+   * file have the same hash. Different game states collide only with a very low
+   * probability.
+   * 
+   * @return Hash of this game state
+   */
+  public long getHash() {
+    return board.getHash() ^ stateHash;
+  }
+
+  /**
+   * Pushes a new entry onto the history stacks and doubles their capacity if
+   * they are full. The new entry starts out with the same values as the previous
+   * one.
+   */
+  private void pushHistory() {
+    if (historySize == hashHistory.length) {
+      int capacity = historySize * 2;
+      drawMoveIndexes = Arrays.copyOf(drawMoveIndexes, capacity);
+      enPassantFiles = Arrays.copyOf(enPassantFiles, capacity);
+      hashHistory = Arrays.copyOf(hashHistory, capacity);
+    }
+    drawMoveIndexes[historySize] = drawMoveIndexes[historySize - 1];
+    enPassantFiles[historySize] = enPassantFiles[historySize - 1];
+    hashHistory[historySize] = hashHistory[historySize - 1];
+    historySize++;
+  }
+
+  /**
+   * Counts how often the current game state occurred before in this game. Only
+   * the game states with the same active color since the last capture or pawn
+   * move are compared since all others can't be the same.
+   * 
+   * @return Number of earlier occurrences of the current game state
+   */
+  public int countRepetitions() {
+    long hash = hashHistory[historySize - 1];
+    int oldestIndex = Math.max(0, historySize - 1 - getDrawMoveIndex());
+    int repetitions = 0;
+    for (int i = historySize - 3; i >= oldestIndex; i -= 2) {
+      if (hashHistory[i] == hash) {
+        repetitions++;
+      }
+    }
+    return repetitions;
+  }
+
+  /**
+   * Returns the index of the last applied move. Moves applied temporarily during
+   * a search are also counted.
+   * 
+   * @return Index of the last move, 0 if no move has been made
+   */
+  public int getMoveIndex() {
+    return moveIndex;
+  }
+
+  /**
+   * Returns the file (x coordinate) of the pawn that can be captured en passant
+   * in this game state.
+   * 
+   * @return File of the pawn that just made a double step, -1 if there is none
+   */
+  public int getEnPassantFile() {
+    return enPassantFiles[historySize - 1];
+  }
+
+  /**
+   * Toggles the en passant file in the hash if there is one.
+   * 
+   * @param file File to toggle, nothing is done for -1
+   */
+  private void toggleEnPassantHash(int file) {
+    if (file >= 0) {
+      stateHash ^= Zobrist.enPassantKey(file);
+    }
+  }
+
   /**
    * Returns the latest draw move index. This is the move index of the last time a
    * move happened that resets the n-move rules.
@@ -67,7 +351,7 @@ public class GameState {
    * @return Current draw move index
    */
   private int getDrawMoveIndex() {
-    return drawMoveIndexes.peek();
+    return drawMoveIndexes[historySize - 1];
   }
 
   /**
@@ -96,11 +380,7 @@ public class GameState {
    * and the draw move index needs to be reset.
    */
   public void notifyCapture() {
-    // set the top of the stack to 0 if not set like this already
-    if (drawMoveIndexes.peek() != 0) {
-      drawMoveIndexes.pop();
-      drawMoveIndexes.push(0);
-    }
+    drawMoveIndexes[historySize - 1] = 0;
   }
 
   /**
@@ -113,10 +393,25 @@ public class GameState {
     return getStatus().gameIsStopped();
   }
 
+  /**
+   * Checks if the game is drawn by one of the rules that don't depend on the
+   * moves that can be made. These are the 75 move rule (a move is two steps of
+   * the move index), threefold repetition and too little material for a
+   * checkmate being left on the board. A checkmate takes precedence over the
+   * first two in the game status.
+   * 
+   * @return If a draw rule applies
+   */
+  public boolean isRuleDraw() {
+    return getDrawMoveIndex() >= 150 || countRepetitions() >= 2 || board.hasInsufficientMaterial();
+  }
+
   /**
    * Calculates the current game status. This is not done automatically when
    * applying a move since it involves fetching all legal moves. (which is
-   * recursive)
+   * recursive) The result is cached for the game state and also by the hash of
+   * the game state so that it doesn't need to be computed again when the game
+   * state is reached again.
    * 
    * @return Computed or cached game status
    */
@@ -126,22 +421,29 @@ public class GameState {
       return status;
     }
 
-    // check if the current player can move and if the player is in check
-    boolean inCheck = board.kingAttacked(activeColor);
-    AcceptAccumulator acceptAccumulator = new AcceptAccumulator();
-    accumulateAllLegalMoves(acceptAccumulator);
-    boolean canMove = acceptAccumulator.conditionIsSatisfied();
-
-    // determine the game status using the combination of these states
-    status = inCheck ? canMove ? GameStatus.IN_CHECK : GameStatus.IN_CHECKMATE
-        : canMove ? GameStatus.NONE : GameStatus.DRAW;
+    long hash = getHash();
+    int cacheIndex = (int) hash & STATUS_CACHE_SIZE - 1;
+    GameStatus moveStatus = statusCacheValues[cacheIndex];
+    if (moveStatus == null || statusCacheKeys[cacheIndex] != hash) {
+      // check if the current player can move and if the player is in check
+      boolean inCheck = board.kingAttacked(activeColor);
+      AcceptAccumulator acceptAccumulator = new AcceptAccumulator();
+      accumulateAllLegalMoves(acceptAccumulator);
+      boolean canMove = acceptAccumulator.conditionIsSatisfied();
+
+      // determine the game status using the combination of these states
+      moveStatus = inCheck ? canMove ? GameStatus.IN_CHECK : GameStatus.IN_CHECKMATE
+          : canMove ? GameStatus.NONE : GameStatus.DRAW;
+      statusCacheKeys[cacheIndex] = hash;
+      statusCacheValues[cacheIndex] = moveStatus;
+    }
 
-    // apply the 75 move rule (a move is two steps of the move index)
-    // also check if there is too little material for a checkmate left on the board
-    if (getDrawMoveIndex() == 150 && !status.gameIsStopped() || board.hasInsufficientMaterial()) {
+    // a checkmate takes precedence over the draw rules except for insufficient
+    // material which makes a checkmate impossible anyway
+    status = moveStatus;
+    if (!status.gameIsStopped() && isRuleDraw() || board.hasInsufficientMaterial()) {
       status = GameStatus.DRAW;
     }
-
     return status;
   }
 
@@ -158,16 +460,9 @@ public class GameState {
    * @param move Move to apply to this game state
    */
   void applyMove(Move move) {
-    // advance the player state and apply the move
-    drawMoveIndexes.push(getDrawMoveIndex() + 1);
-    move.setMoveIndex(journal.getNextMoveIndex());
+    move.setMoveIndex(startMove());
     move.applyTo(board);
-
-    // activate the opposing color to prepare for the turn of the other player
-    activeColor = activeColor.getOpposing();
-
-    // the game status needs to be reset since the state has changed
-    status = null;
+    finishMove(move.hasMoveType(MoveType.PAWN_DOUBLE) ? move.getTargetPosition().getX() : -1);
   }
 
   /**
@@ -178,13 +473,91 @@ public class GameState {
    * @param move Move to reverse on this game state
    */
   void reverseMove(Move move) {
+    startReversal();
+    move.reverseOn(board);
+    finishReversal();
+  }
+
+  /**
+   * Applies an encoded move to this game state without recording it in the
+   * journal. This is used by the search which needs to apply moves without
+   * allocating move objects. Like with applyMove, the move is expected to be
+   * legal.
+   * 
+   * @param move Encoded move to apply
+   */
+  public void applyEncodedMove(int move) {
+    startMove();
+    board.applyMove(move);
+    finishMove(MoveEncoding.getMoveType(move) == MoveType.PAWN_DOUBLE
+        ? MoveEncoding.getTarget(move) % Constants.BOARD_SIZE
+        : -1);
+  }
+
+  /**
+   * Reverses an encoded move that was applied with applyEncodedMove.
+   * 
+   * @param move Encoded move to reverse
+   */
+  public void reverseEncodedMove(int move) {
+    startReversal();
+    board.reverseMove(move);
+    finishReversal();
+  }
+
+  /**
+   * Advances the player state before a move is applied to the board.
+   * 
+   * @return Move index of the move that is being applied
+   */
+  private int startMove() {
+    pushHistory();
+    drawMoveIndexes[historySize - 1]++;
+    return ++moveIndex;
+  }
+
+  /**
+   * Updates the rest of the state after a move has been applied to the board.
+   * 
+   * @param enPassantFile File of the pawn the move makes capturable en passant,
+   *                      -1 if there is none
+   */
+  private void finishMove(int enPassantFile) {
+    // replace the en passant file with the one this move makes possible
+    toggleEnPassantHash(getEnPassantFile());
+    toggleEnPassantHash(enPassantFile);
+    enPassantFiles[historySize - 1] = enPassantFile;
+
+    // activate the opposing color to prepare for the turn of the other player
+    activeColor = activeColor.getOpposing();
+    stateHash ^= Zobrist.ACTIVE_COLOR_KEY;
+
+    // the game status needs to be reset since the state has changed
+    status = null;
+    hashHistory[historySize - 1] = getHash();
+  }
+
+  /**
+   * Restores the state that was changed by finishMove before a move is reversed
+   * on the board.
+   */
+  private void startReversal() {
     // switch the color again and also reset the status
     activeColor = activeColor.getOpposing();
+    stateHash ^= Zobrist.ACTIVE_COLOR_KEY;
     status = null;
 
-    // reverse the last applied move and remove the move index from it
-    move.reverseOn(board);
-    drawMoveIndexes.pop();
+    // restore the previous en passant file
+    toggleEnPassantHash(getEnPassantFile());
+    toggleEnPassantHash(enPassantFiles[historySize - 2]);
+  }
+
+  /**
+   * Restores the player state after a move has been reversed on the board.
+   */
+  private void finishReversal() {
+    historySize--;
+    moveIndex--;
   }
 
   /**
@@ -248,12 +621,13 @@ public class GameState {
       Color forColor) {
     accumulator.setGameState(this);
 
-    // we need to get the positions all at once to avoid a concurrent modification
-    for (Entry<Integer, Piece> entry : board.getPieces().entrySet().stream().collect(Collectors.toList())) {
-      Piece piece = entry.getValue();
+    // take a snapshot of the squares of this color's pieces since accumulators may
+    // temporarily apply moves while we're iterating
+    for (long remaining = board.getColorBits(forColor); remaining != 0; remaining &= remaining - 1) {
+      int boardIndex = Long.numberOfTrailingZeros(remaining);
+
       // stop when move accumulation is stopped by the accumulator
-      if (piece.getColor() == forColor
-          && !piece.accumulateMoves(accumulator, Position.fromBoardIndex(entry.getKey()))) {
+      if (!board.getPieceAt(boardIndex).accumulateMoves(accumulator, Position.fromBoardIndex(boardIndex))) {
         return accumulator;
       }
     }
@@ -338,4 +712,36 @@ public class GameState {
   public List<Move> getLegalMovesFor(Position position) {
     return accumulateLegalMovesFor(CollectionAccumulator.withLinkedList(), position).getMoves();
   }
+
+  /**
+   * Counts the leaf nodes of the tree of legal moves with the given depth (perft).
+   * The game status is ignored so the count only depends on the move generator.
+   * Comparing the count with reference values of well known game states
+   * verifies the move generation.
+   * 
+   * @param depth Depth of the move tree to count
+   * @return Number of move sequences of the given length
+   */
+  public long perft(int depth) {
+    if (depth == 0) {
+      return 1;
+    }
+    return accumulateAllLegalMoves(new PerftAccumulator(depth - 1)).getNodeCount();
+  }
+
+  /**
+   * Counts the leaf nodes of the tree of legal moves with the given depth for
+   * each legal move separately (perft divide). This allows narrowing down which
+   * move has a wrong count.
+   * 
+   * @param depth Depth of the move tree to count, at least 1
+   * @return Number of move sequences starting with each legal move
+   */
+  public Map<Move, Long> perftDivide(int depth) {
+    Map<Move, Long> counts = new LinkedHashMap<>();
+    for (Move move : getAllLegalMoves()) {
+      counts.put(move, runWithMove(move, () -> perft(depth - 1)));
+    }
+    return counts;
+  }
 }
@@ -39,6 +39,19 @@ public class MoveJournal {
     this.gameState = gameState;
   }
 
+  /**
+   * Constructs a copy of the given move journal for a copied game state. The
+   * moves themselves are shared.
+   * 
+   * @param gameState Game state the copy belongs to
+   * @param original  Move journal to copy the history and future of
+   */
+  MoveJournal(GameState gameState, MoveJournal original) {
+    this.gameState = gameState;
+    history.addAll(original.history);
+    future.addAll(original.future);
+  }
+
   /**
    * Returns the history list as an unmodifiable list
    * 
@@ -57,39 +70,6 @@ public class MoveJournal {
     return Collections.unmodifiableList(future);
   }
 
-  /**
-   * Returns the move index of the last move on the stack. Move index 1 is the
-   * first move while move index 0 means no move has been made yet.
-   * 
-   * @return Move index of the latest move
-   */
-  private int getMoveIndex() {
-    return history.size();
-  }
-
-  /**
-   * Returns the move index for the next move that's applied. This needs to be
-   * used in the game state since the move index is relevant for accumulating
-   * moves even if they're not added to the journal history (but are added to the
-   * board's piece history).
-   * 
-   * @return Next move index to set on a move
-   */
-  int getNextMoveIndex() {
-    return getMoveIndex() + 1;
-  }
-
-  /**
-   * Checks if the given move index corresponds to the current move index. Returns
-   * true if the move with the given index is the last applied move.
-   * 
-   * @param index Move index to check
-   * @return True if the index is the last move index
-   */
-  public boolean isLatestMoveIndex(int index) {
-    return getMoveIndex() == index;
-  }
-
   /**
    * Applies the given move to the game state and adds it to the history. This
    * expects the future to be handled externally.
@@ -0,0 +1,144 @@
+package schach.game.state;
+
+import schach.common.Color;
+import schach.common.Constants;
+import schach.game.pieces.Piece;
+import schach.game.pieces.PieceType;
+
+/**
+ * Holds the scores of the pieces depending on their type and the square they
+ * stand on. The score of a piece is its material weight plus the weight of its
+ * position. Since the score of the whole board is the sum of the scores of the
+ * pieces, the board keeps it up to date incrementally whenever a piece is put
+ * on or taken off a square.
+ *
+ * All scores are in centipawns, a pawn is worth 100 of them. Integer scores
+ * are cheap to sum up and compare and give the same results on every JVM.
+ *
+ * The position maps are oriented so that they should be seen from the white
+ * player's perspective. They are inverted for the black player's perspective.
+ */
+public final class PieceSquareTables {
+  //@formatter:off
+  private static final int[] pawnMap = {
+      0,   0,   0,   0,   0,   0,   0,   0,
+     25,  25,  25,  25,  25,  25,  25,  25,
+      5,   5,  10,  15,  15,  10,   5,   5,
+      3,   3,   5,  13,  13,   5,   3,   3,
+      0,   0,   0,  10,  10,   0,   0,   0,
+      3,  -3,  -5,   0,   0,  -5,  -3,   3,
+      3,   5,   5, -10, -10,   5,   5,   3,
+      0,   0,   0,   0,   0,   0,   0,   0
+  };
+  private static final int[] knightMap = {
+    -25, -20, -15, -15, -15, -15, -20, -25,
+    -20, -10,   0,   0,   0,   0, -10, -20,
+    -15,   0,   5,   8,   8,   5,   0, -15,
+    -15,   3,   8,  10,  10,   8,   3, -15,
+    -15,   0,   8,  10,  10,   8,   0, -15,
+    -15,   3,   3,   8,   8,   5,   3, -15,
+    -20, -10,   0,   3,   3,   0, -10, -20,
+    -25, -20, -15, -15, -15, -15, -20, -25
+  };
+  private static final int[] bishopMap = {
+    -10,  -5,  -5,  -5,  -5,  -5,  -5, -10,
+     -5,   0,   0,   0,   0,   0,   0,  -5,
+     -5,   0,   3,   5,   5,   3,   0,  -5,
+     -5,   3,   3,   5,   5,   3,   3,  -5,
+     -5,   0,   5,   5,   5,   5,   0,  -5,
+     -5,   5,   5,   5,   5,   5,   5,  -5,
+     -5,   3,   0,   0,   0,   0,   3,  -5,
+    -10,  -5,  -5,  -5,  -5,  -5,  -5, -10
+  };
+  private static final int[] rookMap = {
+     0,  0,  0,  0,  0,  0,  0,  0,
+     3,  5,  5,  5,  5,  5,  5,  3,
+    -3,  0,  0,  0,  0,  0,  0, -3,
+    -3,  0,  0,  0,  0,  0,  0, -3,
+    -3,  0,  0,  0,  0,  0,  0, -3,
+    -3,  0,  0,  0,  0,  0,  0, -3,
+    -3,  0,  0,  0,  0,  0,  0, -3,
+     0,  0,  0,  3,  3,  0,  0,  0
+  };
+  private static final int[] queenMap = {
+    -10,  -5,  -5,  -3,  -3,  -5,  -5, -10,
+     -5,   0,   0,   0,   0,   0,   0,  -5,
+     -5,   0,   3,   3,   3,   3,   0,  -5,
+     -3,   0,   3,   3,   3,   3,   0,  -3,
+     -3,   0,   3,   3,   3,   3,   0,  -3,
+     -5,   3,   3,   3,   3,   3,   3,  -5,
+     -5,   0,   3,   0,   0,   0,   0,  -5,
+    -10,  -5,  -5,  -3,  -3,  -5,  -5, -10
+  };
+  private static final int[] kingMap = {
+    -15, -20, -20, -25, -25, -20, -20, -15,
+    -15, -20, -20, -25, -25, -20, -20, -15,
+    -15, -20, -20, -25, -25, -20, -20, -15,
+    -15, -20, -20, -25, -25, -20, -20, -15,
+    -10, -15, -15, -20, -20, -15, -15, -10,
+     -5, -10, -10, -10, -10, -10, -10,  -5,
+     10,  10,   0,   0,   0,   0,  10,  10,
+     10,  15,   5,   0,   0,   5,  15,  10
+  };
+  //@formatter:on
+
+  /**
+   * The position maps of the piece types indexed by the ordinal of the type.
+   */
+  private static final int[][] POSITION_MAPS = { kingMap, queenMap, rookMap, bishopMap, knightMap, pawnMap };
+
+  /**
+   * How much the existence of a piece of each type is worth indexed by the
+   * ordinal of the type. Kings are valued 0 since their loss is never an option
+   * and the game status CHECKMATE will happen before a king is ever captured.
+   */
+  private static final int[] PIECE_WEIGHTS = { 0, 900, 500, 350, 300, 100 };
+
+  /**
+   * Scores of each piece color, type and square. Use getScore for access.
+   */
+  private static final int[] SCORES = new int[Color.AMOUNT * PieceType.amount * Constants.SQUARE_AMOUNT];
+
+  static {
+    for (Color color : Color.values()) {
+      for (PieceType type : PieceType.values()) {
+        int[] positionMap = POSITION_MAPS[type.ordinal()];
+        for (int boardIndex = 0; boardIndex < Constants.SQUARE_AMOUNT; boardIndex++) {
+          // invert the position index for black pieces
+          int mappedIndex = color == Color.BLACK ? positionMap.length - boardIndex - 1 : boardIndex;
+          SCORES[(color.getIndex() * PieceType.amount + type.ordinal()) * Constants.SQUARE_AMOUNT
+              + boardIndex] = PIECE_WEIGHTS[type.ordinal()] + positionMap[mappedIndex];
+        }
+      }
+    }
+  }
+
+  /**
+   * Prevent instances of this class
+   */
+  private PieceSquareTables() {
+  }
+
+  /**
+   * Returns how much the existence of a piece of the given type is worth
+   * regardless of its position.
+   *
+   * @param type Type of the piece
+   * @return Material weight of a piece of this type in centipawns
+   */
+  public static int getPieceWeight(PieceType type) {
+    return PIECE_WEIGHTS[type.ordinal()];
+  }
+
+  /**
+   * Returns the score of the given piece standing on the given square.
+   *
+   * @param piece      Piece to get the score for, only its color and type matter
+   * @param boardIndex Board index of the square the piece is on
+   * @return Score of the piece on that square for its own color in centipawns
+   */
+  public static int getScore(Piece piece, int boardIndex) {
+    return SCORES[(piece.getColor().getIndex() * PieceType.amount + piece.getType().ordinal())
+        * Constants.SQUARE_AMOUNT + boardIndex];
+  }
+}
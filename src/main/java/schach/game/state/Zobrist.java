@@ -0,0 +1,105 @@
+package schach.game.state;
+
+import java.util.SplittableRandom;
+
+import schach.common.Color;
+import schach.common.Constants;
+import schach.game.pieces.Piece;
+import schach.game.pieces.PieceType;
+
+/**
+ * Holds the random keys used for Zobrist hashing of game states. The hash of a
+ * game state is the combination (xor) of the keys of all the features present
+ * in it. Since xor is its own inverse, the hash can be updated incrementally by
+ * toggling the keys of the features that change when a move is applied or
+ * reversed.
+ *
+ * The keys are generated with a fixed seed so that hashes are the same across
+ * runs which makes them usable in tests and for debugging.
+ */
+public final class Zobrist {
+  /**
+   * Seed for the random generator that produces the keys.
+   */
+  private static final long SEED = 0x5CAC4D3A9E1F7B21L;
+
+  /**
+   * Keys for each piece color, type and square. Use pieceKey for access.
+   */
+  private static final long[] PIECE_KEYS = new long[Color.AMOUNT * PieceType.amount * Constants.SQUARE_AMOUNT];
+
+  /**
+   * Keys for the four castling rights. Use castlingKey for access.
+   */
+  private static final long[] CASTLING_KEYS = new long[Color.AMOUNT * 2];
+
+  /**
+   * Keys for the file (x coordinate) of a pawn that can be captured en passant.
+   */
+  private static final long[] EN_PASSANT_KEYS = new long[Constants.BOARD_SIZE];
+
+  /**
+   * Key that is toggled when the active color changes. It is present in the hash
+   * when black is the active color.
+   */
+  public static final long ACTIVE_COLOR_KEY;
+
+  static {
+    SplittableRandom random = new SplittableRandom(SEED);
+    for (int i = 0; i < PIECE_KEYS.length; i++) {
+      PIECE_KEYS[i] = random.nextLong();
+    }
+    for (int i = 0; i < CASTLING_KEYS.length; i++) {
+      CASTLING_KEYS[i] = random.nextLong();
+    }
+    for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+      EN_PASSANT_KEYS[i] = random.nextLong();
+    }
+    ACTIVE_COLOR_KEY = random.nextLong();
+  }
+
+  /**
+   * Prevent instances of this class
+   */
+  private Zobrist() {
+  }
+
+  /**
+   * Returns the key for the given piece standing on the given square.
+   *
+   * @param piece      Piece to get the key for, only its color and type matter
+   * @param boardIndex Board index of the square the piece is on
+   * @return Key of the piece on that square
+   */
+  public static long pieceKey(Piece piece, int boardIndex) {
+    return PIECE_KEYS[(piece.getColor().getIndex() * PieceType.amount + piece.getType().ordinal())
+        * Constants.SQUARE_AMOUNT + boardIndex];
+  }
+
+  /**
+   * Returns the combined key of all castling rights in the given castling rights
+   * bit set. Bit n of the bit set corresponds to castling right n.
+   *
+   * @param castlingRights Bit set of castling rights
+   * @return Combined key of the castling rights
+   */
+  public static long castlingKey(int castlingRights) {
+    long key = 0;
+    for (int right = 0; right < CASTLING_KEYS.length; right++) {
+      if ((castlingRights & 1 << right) != 0) {
+        key ^= CASTLING_KEYS[right];
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Returns the key for a pawn on the given file that can be captured en passant.
+   *
+   * @param file File (x coordinate) of the pawn
+   * @return Key for en passant captures on this file
+   */
+  public static long enPassantKey(int file) {
+    return EN_PASSANT_KEYS[file];
+  }
+}
@@ -28,7 +28,7 @@ public class GameEvaluatorTest {
     // test that it's 0 to begin with
     GameState game = new GameState();
     Board board = game.getBoard();
-    assertTrue(evaluator.calculateBoardValue(game) < 1E-3);
+    assertEquals(0, evaluator.calculateBoardValue(game));
 
     // Test that a modified board as the correct value
     board.capturePiece(new Position(0, 0));
@@ -50,7 +50,7 @@ public class GameEvaluatorTest {
     // Test that it returns the min/max value on end-states
     GameState game = new GameState();
     intoCheckmate(game);
-    assertEquals(Double.NEGATIVE_INFINITY, evaluator.calculateBoardValue(game));
+    assertEquals(-GameEvaluator.MATE_VALUE, evaluator.calculateBoardValue(game));
     game = new GameState();
     intoDraw(game);
     assertEquals(0, evaluator.calculateBoardValue(game));
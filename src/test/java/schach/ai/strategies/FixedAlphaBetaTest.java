@@ -1,16 +1,22 @@
 package schach.ai.strategies;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+//NOPMD is required here to suppress false positives
+import static schach.game.GameTestUtils.*; //NOPMD
 
 import org.junit.jupiter.api.Test;
 
 import schach.ai.GameEvaluator;
 import schach.common.Color;
 import schach.common.Position;
+import schach.game.moves.Move;
 import schach.game.moves.Movement;
 import schach.game.state.Board;
 import schach.game.state.GameState;
+import schach.game.state.GameStatus;
 
 /**
  * Tests the behavior of the fixedAlphaBeta search. Because in most situation the best move is impossible to calculate, only very
@@ -75,6 +81,136 @@ public class FixedAlphaBetaTest {
     
   }
   
+  /**
+   * Tests that the transposition table reduces the number of searched nodes
+   * without changing the found move.
+   */
+  @Test
+  public void testTranspositionTable() {
+    evaluator.setAiColor(Color.WHITE);
+    FixedAlphaBeta withoutTable = new FixedAlphaBeta(4);
+    withoutTable.setEvaluator(evaluator);
+    withoutTable.setPlayer(new FakeThreadedPlayer());
+    FixedAlphaBeta withTable = new FixedAlphaBeta(4);
+    withTable.setEvaluator(evaluator);
+    withTable.setPlayer(new FakeThreadedPlayer());
+    withTable.setTranspositionTable(new TranspositionTable(4));
+
+    GameState game = gameFromMoves("e2-e4", "e7-e5", "g1-f3", "b8-c6");
+    assertEquals(withoutTable.findBestMove(game), withTable.findBestMove(game));
+    assertTrue(withTable.getNodeCount() + withTable.getQuiescenceNodeCount() < withoutTable.getNodeCount()
+        + withoutTable.getQuiescenceNodeCount());
+    assertTrue(withTable.getTranspositionTable().getHits() > 0);
+  }
+
+  /**
+   * Tests that the quiescence search sees that a capture of a defended piece
+   * loses material even though the recapture is beyond the maximum depth.
+   */
+  @Test
+  public void testQuiescence() {
+    evaluator.setAiColor(Color.WHITE);
+    FixedAlphaBeta fixedAlphaBeta = new FixedAlphaBeta(1);
+    fixedAlphaBeta.setEvaluator(evaluator);
+    fixedAlphaBeta.setPlayer(new FakeThreadedPlayer());
+
+    // the queen can capture three pawns that are all defended
+    GameState game = gameFromMoves("e2-e4", "e7-e5", "d1-h5", "b8-c6");
+    Position queenPosition = new Position(7, 3);
+    fixedAlphaBeta.setQuiescence(false);
+    Move greedyMove = fixedAlphaBeta.findBestMove(game);
+    assertEquals(queenPosition, greedyMove.getOriginPosition());
+    assertNotNull(game.getPieceAt(greedyMove.getTargetPosition()));
+    assertEquals(0, fixedAlphaBeta.getQuiescenceNodeCount());
+
+    fixedAlphaBeta.setQuiescence(true);
+    Move quietMove = fixedAlphaBeta.findBestMove(game);
+    assertTrue(!queenPosition.equals(quietMove.getOriginPosition())
+        || game.getPieceAt(quietMove.getTargetPosition()) == null);
+    assertTrue(fixedAlphaBeta.getQuiescenceNodeCount() > fixedAlphaBeta.getNodeCount());
+  }
+
+  /**
+   * Tests that searching the first level with multiple threads finds the same
+   * move and counts the nodes of all threads.
+   */
+  @Test
+  public void testThreads() {
+    evaluator.setAiColor(Color.WHITE);
+    FixedAlphaBeta sequential = new FixedAlphaBeta(3);
+    sequential.setEvaluator(evaluator);
+    sequential.setPlayer(new FakeThreadedPlayer());
+    FixedAlphaBeta parallel = new FixedAlphaBeta(3);
+    parallel.setEvaluator(evaluator);
+    parallel.setPlayer(new FakeThreadedPlayer());
+    parallel.setThreadCount(3);
+
+    GameState game = gameFromMoves("e2-e4", "e7-e5", "g1-f3", "b8-c6");
+    long hash = game.getHash();
+    assertEquals(sequential.findBestMove(game), parallel.findBestMove(game));
+    assertEquals(hash, game.getHash());
+    assertTrue(parallel.getNodeCount() > 0);
+  }
+
+  /**
+   * Tests that a checkmate in one move is preferred over checkmates that take
+   * longer even though the search is deep enough to see both.
+   */
+  @Test
+  public void testMateDistance() {
+    evaluator.setAiColor(Color.WHITE);
+    FixedAlphaBeta fixedAlphaBeta = new FixedAlphaBeta(4);
+    fixedAlphaBeta.setEvaluator(evaluator);
+    fixedAlphaBeta.setPlayer(new FakeThreadedPlayer());
+    fixedAlphaBeta.setTranspositionTable(new TranspositionTable(1));
+
+    GameState game = new GameState("7k/8/6K1/8/8/8/8/Q7 w - - 0 1");
+    Move move = fixedAlphaBeta.findBestMove(game);
+    assertEquals(GameStatus.IN_CHECKMATE, game.runWithMove(move, game::getStatus));
+
+    // the quiescence search searches all moves when in check and sees the
+    // checkmate without computing the game status
+    fixedAlphaBeta.setMaxDepth(1);
+    move = fixedAlphaBeta.findBestMove(game);
+    assertEquals(GameStatus.IN_CHECKMATE, game.runWithMove(move, game::getStatus));
+  }
+
+  /**
+   * Tests that values that depend on a repetition in the moves leading to a game
+   * state aren't stored in the transposition table. The same game state is
+   * searched once after moves that make a repetition possible and once without
+   * them.
+   */
+  @Test
+  public void testRepetitionNotStored() {
+    evaluator.setAiColor(Color.WHITE);
+    FixedAlphaBeta fixedAlphaBeta = new FixedAlphaBeta(4);
+    fixedAlphaBeta.setEvaluator(evaluator);
+    fixedAlphaBeta.setPlayer(new FakeThreadedPlayer());
+    TranspositionTable table = new TranspositionTable(1);
+    fixedAlphaBeta.setTranspositionTable(table);
+
+    // after Ke2-d2 black can repeat the game state with Ka7-a8
+    GameState game = new GameState("k7/8/8/8/8/8/8/4K2R w - - 0 1");
+    applyMoves(game, "e1-d1", "a8-b8", "d1-d2", "b8-a8", "d2-e2", "a8-a7");
+    GameState repeatable = game.copy();
+    applyMoves(repeatable, "e2-d2");
+    long hash = repeatable.getHash();
+    assertEquals(0, repeatable.countRepetitions());
+
+    // the draw black can reach isn't stored as the value of the game state
+    TranspositionTable.Entry entry = new TranspositionTable.Entry();
+    assertNotNull(fixedAlphaBeta.findBestMove(game));
+    assertTrue(!table.probe(hash, entry) || entry.getValue() != 0);
+
+    // without the moves before, white keeps the advantage of the rook
+    GameState fresh = new GameState("8/k7/8/8/8/8/4K3/7R w - - 0 1");
+    assertEquals(game.getHash(), fresh.getHash());
+    assertNotNull(fixedAlphaBeta.findBestMove(fresh));
+    assertTrue(table.probe(hash, entry));
+    assertTrue(entry.getValue() < 0);
+  }
+
   /**
    * Tests if 2 moves describe the same move
    * @param origin the origin of the first move
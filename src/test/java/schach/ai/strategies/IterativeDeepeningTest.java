@@ -0,0 +1,127 @@
+package schach.ai.strategies;
+
+import schach.ai.GameEvaluator;
+import schach.common.Color;
+import schach.common.Position;
+import schach.game.moves.Move;
+import schach.game.state.Board;
+import schach.game.state.GameState;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+//NOPMD is required here to suppress false positives
+import static schach.game.GameTestUtils.*; //NOPMD
+
+/**
+ * Tests the budgets and results of the iterative deepening search.
+ */
+public class IterativeDeepeningTest {
+  private final GameEvaluator evaluator = new GameEvaluator();
+  private final FakeThreadedPlayer fakePlayer = new FakeThreadedPlayer();
+
+  /**
+   * Creates an iterative deepening strategy with the given budgets that uses the
+   * test evaluator and player.
+   * 
+   * @param moveTime   Time budget in milliseconds
+   * @param nodeBudget Node budget
+   * @return Prepared search strategy
+   */
+  private IterativeDeepening createStrategy(long moveTime, long nodeBudget) {
+    IterativeDeepening strategy = new IterativeDeepening(moveTime, nodeBudget);
+    evaluator.setAiColor(Color.WHITE);
+    strategy.setEvaluator(evaluator);
+    strategy.setPlayer(fakePlayer);
+    strategy.setTranspositionTable(new TranspositionTable(4));
+    return strategy;
+  }
+
+  /**
+   * Tests that the search stops at the depth limit and finds the same move as
+   * the fixed depth search.
+   */
+  @Test
+  public void testDepthLimit() {
+    GameState game = new GameState();
+    Board board = game.getBoard();
+    board.capturePiece(new Position(0, 6));
+    board.capturePiece(new Position(0, 1));
+
+    IterativeDeepening strategy = createStrategy(0, 0);
+    strategy.setMaxDepth(3);
+    Move move = strategy.findBestMove(game);
+    assertEquals(3, strategy.getCompletedDepth());
+    assertEquals(new Position(0, 7), move.getOriginPosition());
+    assertEquals(new Position(0, 0), move.getTargetPosition());
+
+    assertThrows(IllegalArgumentException.class, () -> strategy.setMaxDepth(0));
+  }
+
+  /**
+   * Tests that the search returns a move within the time budget.
+   */
+  @Test
+  public void testTimeBudget() {
+    GameState game = gameFromMoves("e2-e4", "e7-e5");
+    IterativeDeepening strategy = createStrategy(300, 0);
+    long startTime = System.currentTimeMillis();
+    Move move = strategy.findBestMove(game);
+    assertTrue(System.currentTimeMillis() - startTime < 3000);
+    assertNotNull(move);
+    assertTrue(strategy.getCompletedDepth() >= 1);
+    assertTrue(game.getAllLegalMoves().contains(move));
+  }
+
+  /**
+   * Tests that the node budget stops the search but the first iteration is
+   * always completed.
+   */
+  @Test
+  public void testNodeBudget() {
+    GameState game = new GameState();
+    IterativeDeepening strategy = createStrategy(0, 1);
+    assertNotNull(strategy.findBestMove(game));
+    assertEquals(1, strategy.getCompletedDepth());
+
+    strategy = createStrategy(0, 2000);
+    assertNotNull(strategy.findBestMove(game));
+    assertTrue(strategy.getCompletedDepth() > 1);
+    assertTrue(strategy.getCompletedDepth() < IterativeDeepening.DEFAULT_DEPTH_LIMIT);
+
+    // the quiescence nodes count towards the budget in a tactical game state
+    game = new GameState("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+    strategy = createStrategy(0, 20000);
+    assertNotNull(strategy.findBestMove(game));
+    assertTrue(strategy.getNodeCount() + strategy.getQuiescenceNodeCount() < 21000);
+  }
+
+  /**
+   * Tests that searching with helper threads finds the same move as searching
+   * with a single thread.
+   */
+  @Test
+  public void testThreads() {
+    // the white rook can capture the undefended black queen
+    GameState game = new GameState("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+    IterativeDeepening strategy = createStrategy(0, 0);
+    strategy.setMaxDepth(4);
+    strategy.setThreadCount(3);
+    for (int i = 0; i < 3; i++) {
+      Move move = strategy.findBestMove(game);
+      assertEquals(4, strategy.getCompletedDepth());
+      assertEquals(new Position(3, 6), move.getOriginPosition());
+      assertEquals(new Position(3, 3), move.getTargetPosition());
+    }
+    assertThrows(IllegalArgumentException.class, () -> strategy.setThreadCount(0));
+  }
+
+  /**
+   * Tests that aborting through the player prevents a move from being returned.
+   */
+  @Test
+  public void testAborted() {
+    IterativeDeepening strategy = createStrategy(100, 0);
+    fakePlayer.setAborted(true);
+    assertNull(strategy.findBestMove(new GameState()));
+  }
+}
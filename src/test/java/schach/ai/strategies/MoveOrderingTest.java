@@ -0,0 +1,78 @@
+package schach.ai.strategies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+//NOPMD is required here to suppress false positives
+import static schach.game.GameTestUtils.*; //NOPMD
+
+import org.junit.jupiter.api.Test;
+
+import schach.game.moves.MoveEncoding;
+import schach.game.moves.Movement;
+import schach.game.state.GameState;
+
+/**
+ * Tests the stages of the move ordering used by the alpha/beta search.
+ */
+public class MoveOrderingTest {
+  /**
+   * Encodes the legal move that fulfills the given movement.
+   * 
+   * @param game     Game state to find the move in
+   * @param movement Movement to find the move for
+   * @return Encoded move
+   */
+  private static int encode(GameState game, Movement movement) {
+    return MoveEncoding.encode(game.getBoard(), game.validateMove(movement));
+  }
+
+  /**
+   * Tests that the hash move comes first, then captures, then killer moves and
+   * then the other quiet moves by their history.
+   */
+  @Test
+  public void testScoreMove() {
+    MoveOrdering ordering = new MoveOrdering();
+    GameState game = gameFromMoves("e2-e4", "d7-d5");
+    int capture = encode(game, new Movement(4, 4, 3, 3));
+    int hashMove = encode(game, new Movement(6, 7, 5, 5));
+    int killer = encode(game, new Movement(1, 7, 2, 5));
+    int quiet = encode(game, new Movement(0, 6, 0, 5));
+    int hashMoveKey = MoveEncoding.getKey(hashMove);
+
+    assertTrue(ordering.scoreMove(game, hashMove, 2, hashMoveKey) > ordering.scoreMove(game, capture, 2, hashMoveKey));
+    assertTrue(ordering.scoreMove(game, capture, 2, hashMoveKey) > ordering.scoreMove(game, killer, 2, hashMoveKey));
+    assertEquals(ordering.scoreMove(game, killer, 2, 0), ordering.scoreMove(game, quiet, 2, 0));
+
+    // the cut off makes the move a killer at its depth and adds history elsewhere
+    ordering.recordCutoff(game, killer, 2, 3);
+    assertTrue(ordering.scoreMove(game, capture, 2, 0) > ordering.scoreMove(game, killer, 2, 0));
+    assertTrue(ordering.scoreMove(game, killer, 2, 0) > ordering.scoreMove(game, killer, 4, 0));
+    assertTrue(ordering.scoreMove(game, killer, 4, 0) > ordering.scoreMove(game, quiet, 4, 0));
+
+    // captures don't become killer moves
+    ordering.recordCutoff(game, capture, 4, 3);
+    assertEquals(ordering.scoreMove(game, quiet, 4, 0), 0);
+
+    ordering.clear();
+    assertEquals(ordering.scoreMove(game, killer, 2, 0), ordering.scoreMove(game, quiet, 2, 0));
+  }
+
+  /**
+   * Tests that captures of more valuable pieces and captures with less valuable
+   * pieces come first.
+   */
+  @Test
+  public void testCaptureOrder() {
+    MoveOrdering ordering = new MoveOrdering();
+    GameState game = gameFromMoves("e2-e4", "d7-d5", "d1-g4", "c8-g4", "b1-c3", "g4-d1");
+    int pawnTakesPawn = encode(game, new Movement(4, 4, 3, 3));
+    int knightTakesPawn = encode(game, new Movement(2, 5, 3, 3));
+    int kingTakesBishop = encode(game, new Movement(4, 7, 3, 7));
+    int knightTakesBishop = encode(game, new Movement(2, 5, 3, 7));
+
+    assertTrue(ordering.scoreMove(game, pawnTakesPawn, 1, 0) > ordering.scoreMove(game, knightTakesPawn, 1, 0));
+    assertTrue(ordering.scoreMove(game, knightTakesBishop, 1, 0) > ordering.scoreMove(game, kingTakesBishop, 1, 0));
+    assertTrue(ordering.scoreMove(game, kingTakesBishop, 1, 0) > ordering.scoreMove(game, pawnTakesPawn, 1, 0));
+  }
+}
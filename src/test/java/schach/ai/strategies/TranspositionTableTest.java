@@ -0,0 +1,74 @@
+package schach.ai.strategies;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the storage, lookup and replacement behavior of the transposition
+ * table.
+ */
+public class TranspositionTableTest {
+  /**
+   * Tests that stored entries can be found again and that misses are counted.
+   */
+  @Test
+  public void testProbe() {
+    TranspositionTable table = new TranspositionTable(1);
+    TranspositionTable.Entry entry = new TranspositionTable.Entry();
+    assertTrue(table.getCapacity() > 0);
+    assertFalse(table.probe(42, entry));
+    assertEquals(1, table.getMisses());
+    assertEquals(0, table.getCollisions());
+
+    table.store(42, 3, -150, TranspositionTable.LOWER_BOUND, 0);
+    assertTrue(table.probe(42, entry));
+    assertEquals(1, table.getHits());
+    assertEquals(-150, entry.getValue());
+    assertEquals(3, entry.getDepth());
+    assertEquals(TranspositionTable.LOWER_BOUND, entry.getBound());
+
+    // a different key in the same bucket is a collision
+    long otherKey = 42 + ((long) table.getCapacity() << 32);
+    assertFalse(table.probe(otherKey, entry));
+    assertEquals(1, table.getCollisions());
+
+    // clearing removes everything
+    table.clear();
+    assertEquals(0, table.getHits());
+    assertFalse(table.probe(42, entry));
+
+    assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+  }
+
+  /**
+   * Tests that deep entries are kept in the depth-preferred slot while shallower
+   * entries use the always-replace slot.
+   */
+  @Test
+  public void testReplacement() {
+    TranspositionTable table = new TranspositionTable(1);
+    TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+    // keys that map to the same bucket
+    long deepKey = 7;
+    long shallowKey = 7 + ((long) table.getCapacity() << 32);
+    long otherShallowKey = 7 + ((long) table.getCapacity() << 33);
+
+    // the shallow entries don't replace the deep entry
+    table.store(deepKey, 5, 1, TranspositionTable.EXACT, 0);
+    table.store(shallowKey, 2, 2, TranspositionTable.EXACT, 0);
+    assertTrue(table.probe(deepKey, entry));
+    assertTrue(table.probe(shallowKey, entry));
+    table.store(otherShallowKey, 2, 3, TranspositionTable.EXACT, 0);
+    assertTrue(table.probe(deepKey, entry));
+    assertFalse(table.probe(shallowKey, entry));
+    assertTrue(table.probe(otherShallowKey, entry));
+
+    // in a new search the deep entry can be replaced
+    table.newSearch();
+    table.store(shallowKey, 1, 4, TranspositionTable.UPPER_BOUND, 0);
+    assertFalse(table.probe(deepKey, entry));
+    assertTrue(table.probe(shallowKey, entry));
+    assertEquals(4, entry.getValue());
+  }
+}
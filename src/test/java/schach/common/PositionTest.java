@@ -28,6 +28,21 @@ public class PositionTest {
     assertEquals(5, position.getY());
   }
 
+  /**
+   * Test that positions on the board are shared instances and all positions
+   * outside of the board are the off board position.
+   */
+  @Test
+  public void testOf() {
+    assertSame(Position.of(1, 1), Position.of(1, 1));
+    assertEquals(origin, Position.of(1, 1));
+    assertSame(Position.fromBoardIndex(index), Position.of(6, 5));
+    assertSame(Position.of(4, 5), Position.fromOffset(origin, offset));
+    assertSame(Position.OFF_BOARD, Position.of(8, 0));
+    assertSame(Position.OFF_BOARD, Position.fromOffset(origin, new Vector(-2, 0)));
+    assertTrue(Position.OFF_BOARD.outOfBounds());
+  }
+
   /**
    * Test that the correct positions are generated from board indexes
    */
@@ -5,6 +5,7 @@ import java.lang.reflect.Field;
 import schach.common.Position;
 import schach.consoleui.commands.ConsoleCommand;
 import schach.consoleui.commands.ConsoleJournalCommand;
+import schach.consoleui.commands.PerftCommand;
 import schach.consoleui.commands.PrintCapturedCommand;
 import schach.consoleui.commands.PrintingCommand;
 import schach.game.moves.MoveType;
@@ -68,6 +69,11 @@ public class CommandInterfaceTest {
     // test generation of journal commands
     assertEquals(ConsoleJournalCommand.UNDO, CommandInterface.parseInput("undo"));
     assertEquals(ConsoleJournalCommand.REDO, CommandInterface.parseInput("redo"));
+
+    // test perft commands with valid and invalid depths
+    assertEquals(3, ((PerftCommand) CommandInterface.parseInput("perft 3")).getDepth());
+    assertEquals(PrintingCommand.INVALID_INPUT, CommandInterface.parseInput("perft 0"));
+    assertEquals(PrintingCommand.INVALID_INPUT, CommandInterface.parseInput("perft x"));
   }
 
   /**
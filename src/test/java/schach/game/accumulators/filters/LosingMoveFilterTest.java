@@ -0,0 +1,69 @@
+package schach.game.accumulators.filters;
+
+import schach.game.state.GameState;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+//NOPMD is required here to suppress false positives
+import static schach.game.GameTestUtils.*; //NOPMD
+
+/**
+ * Tests that the losing move filter only lets legal moves through.
+ */
+public class LosingMoveFilterTest {
+  /**
+   * Tests that pinned pieces can only move along the line of the pin.
+   */
+  @Test
+  public void testPins() {
+    GameState game = new GameState("4k3/8/8/b7/8/2N5/7R/r2RK3 w - - 0 1");
+
+    // the knight is pinned by the bishop and can't move at all
+    assertInvalidMove(game, "c3-e4", "c3-b5", "c3-a4");
+
+    // the rook on d1 is pinned by the other rook and can only move along the rank
+    assertValidMove(game, "d1-c1", "d1-a1");
+    assertInvalidMove(game, "d1-d2", "d1-d8");
+
+    // pieces that aren't pinned can move freely
+    assertValidMove(game, "h2-h8", "h2-a2");
+  }
+
+  /**
+   * Tests that only moves resolving a check are allowed.
+   */
+  @Test
+  public void testChecks() {
+    GameState game = new GameState("4k3/8/8/8/8/8/1N6/r3K2R w K - 0 1");
+
+    // block, capture or move away, but no other move and no castling
+    assertValidMove(game, "b2-d1", "e1-e2", "e1-f2");
+    assertInvalidMove(game, "b2-d3", "e1-g1", "h1-h8", "e1-d1", "e1-f1");
+
+    // capturing the checking knight is possible with the pawn
+    GameState knightCheck = new GameState("4k3/8/8/8/8/3n4/4P3/4K3 w - - 0 1");
+    assertValidMove(knightCheck, "e2-d3");
+    assertInvalidMove(knightCheck, "e2-e3");
+  }
+
+  /**
+   * Tests that only the king can move in a double check.
+   */
+  @Test
+  public void testDoubleCheck() {
+    GameState game = new GameState("4k3/8/8/8/8/5n2/8/R3K2r w - - 0 1");
+    assertValidMove(game, "e1-e2");
+    assertInvalidMove(game, "a1-h1");
+  }
+
+  /**
+   * Tests that en passant captures that expose the king along the rank are not
+   * allowed.
+   */
+  @Test
+  public void testEnPassantDiscovery() {
+    GameState game = new GameState("8/8/8/KPp4r/8/8/8/7k w - c6 0 1");
+    assertInvalidMove(game, "b5-c6");
+    assertValidMove(game, "b5-b6");
+  }
+}
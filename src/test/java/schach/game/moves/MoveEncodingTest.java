@@ -0,0 +1,99 @@
+package schach.game.moves;
+
+import schach.game.pieces.Piece;
+import schach.game.pieces.PieceType;
+import schach.game.state.Board;
+import schach.game.state.GameState;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the encoding of moves as ints and applying encoded moves.
+ */
+public class MoveEncodingTest {
+  /**
+   * Game states with castling, en passant and promotions.
+   */
+  private static final String[] FENS = {
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+      "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+      "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1" };
+
+  /**
+   * Tests that the fields of a move can be read back from its encoding.
+   */
+  @Test
+  public void testEncode() {
+    int move = MoveEncoding.encode(52, 36, MoveType.PAWN_DOUBLE, null);
+    assertEquals(52, MoveEncoding.getOrigin(move));
+    assertEquals(36, MoveEncoding.getTarget(move));
+    assertEquals(MoveType.PAWN_DOUBLE, MoveEncoding.getMoveType(move));
+    assertNull(MoveEncoding.getCapturedType(move));
+    assertTrue(MoveEncoding.isQuiet(move));
+
+    move = MoveEncoding.encode(9, 0, MoveType.PROMOTION_KNIGHT, PieceType.ROOK);
+    assertEquals(PieceType.ROOK, MoveEncoding.getCapturedType(move));
+    assertEquals(MoveType.PROMOTION_KNIGHT, MoveEncoding.getMoveType(move));
+    assertTrue(MoveEncoding.isCapture(move));
+    assertFalse(MoveEncoding.isQuiet(move));
+    assertEquals(0, MoveEncoding.getCaptureIndex(move));
+  }
+
+  /**
+   * Tests that decoding an encoded move gives the same move and that applying
+   * an encoded move changes the game state like applying the move object.
+   */
+  @Test
+  public void testDecodeAndApply() {
+    int castlingAmount = 0;
+    int enPassantAmount = 0;
+    for (String fen : FENS) {
+      GameState game = new GameState(fen);
+      Board board = game.getBoard();
+      long hash = game.getHash();
+      for (Move move : game.getAllLegalMoves()) {
+        int encoded = MoveEncoding.encode(board, move);
+        Move decoded = MoveEncoding.decode(encoded);
+        assertEquals(move.getClass(), decoded.getClass());
+        assertEquals(move.getKey(), MoveEncoding.getKey(encoded));
+        assertEquals(encoded, MoveEncoding.encode(board, decoded));
+        castlingAmount += MoveEncoding.isCastling(encoded) ? 1 : 0;
+        enPassantAmount += MoveEncoding.isEnPassant(encoded) ? 1 : 0;
+
+        long objectHash = game.runWithMove(move, game::getHash);
+        game.applyEncodedMove(encoded);
+        assertEquals(objectHash, game.getHash(), move.toString());
+        game.reverseEncodedMove(encoded);
+        assertEquals(hash, game.getHash());
+      }
+    }
+    assertEquals(2, castlingAmount);
+    assertEquals(1, enPassantAmount);
+  }
+
+  /**
+   * Tests that encoded promotions reuse the same promoted piece and put the
+   * original pawn back when they are reversed.
+   */
+  @Test
+  public void testPromotionReusesPieces() {
+    GameState game = new GameState(FENS[2]);
+    Board board = game.getBoard();
+    Piece pawn = board.getPieceAt(54);
+    int move = MoveEncoding.encode(54, 62, MoveType.PROMOTION_QUEEN, null);
+
+    game.applyEncodedMove(move);
+    Piece queen = board.getPieceAt(62);
+    assertEquals(PieceType.QUEEN, queen.getType());
+    game.reverseEncodedMove(move);
+    assertSame(pawn, board.getPieceAt(54));
+
+    game.applyEncodedMove(move);
+    assertSame(queen, board.getPieceAt(62));
+    assertSame(queen, game.copy().getBoard().getPieceAt(62));
+    game.reverseEncodedMove(move);
+    assertSame(pawn, board.getPieceAt(54));
+    assertNull(board.getPieceAt(62));
+  }
+}
@@ -0,0 +1,52 @@
+package schach.game.moves;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the reusable list of encoded moves.
+ */
+public class MoveListTest {
+  /**
+   * Tests that selecting the best move for each index goes through all moves
+   * highest score first.
+   */
+  @Test
+  public void testSelectBest() {
+    MoveList moves = new MoveList();
+    int[] scores = { 3, 7, -2, 7, 0, 12 };
+    for (int i = 0; i < scores.length; i++) {
+      moves.add(i + 1);
+      moves.setScore(i, scores[i]);
+    }
+    assertEquals(scores.length, moves.size());
+
+    assertEquals(6, moves.selectBest(0));
+    int previousScore = moves.getScore(0);
+    boolean[] selected = new boolean[scores.length + 1];
+    selected[6] = true;
+    for (int i = 1; i < moves.size(); i++) {
+      int move = moves.selectBest(i);
+      assertTrue(moves.getScore(i) <= previousScore);
+      assertEquals(scores[move - 1], moves.getScore(i));
+      assertFalse(selected[move]);
+      selected[move] = true;
+      previousScore = moves.getScore(i);
+    }
+  }
+
+  /**
+   * Tests that clearing the list allows reusing it.
+   */
+  @Test
+  public void testClear() {
+    MoveList moves = new MoveList();
+    moves.add(5);
+    moves.setScore(0, 10);
+    moves.clear();
+    assertEquals(0, moves.size());
+    moves.add(8);
+    assertEquals(8, moves.get(0));
+    assertEquals(0, moves.getScore(0));
+  }
+}
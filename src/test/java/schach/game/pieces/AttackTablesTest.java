@@ -0,0 +1,76 @@
+package schach.game.pieces;
+
+import schach.common.Color;
+import schach.common.Position;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the precomputed attack tables
+ */
+public class AttackTablesTest {
+  /**
+   * Tests that the jumping pieces don't attack squares outside of the board
+   */
+  @Test
+  public void testJumpingAttacks() {
+    int corner = Position.getBoardIndex(0, 0);
+    int center = Position.getBoardIndex(3, 4);
+    assertEquals(2, Long.bitCount(AttackTables.getKnightAttacks(corner)));
+    assertEquals(8, Long.bitCount(AttackTables.getKnightAttacks(center)));
+    assertEquals(3, Long.bitCount(AttackTables.getKingAttacks(corner)));
+    assertEquals(8, Long.bitCount(AttackTables.getKingAttacks(center)));
+    assertNotEquals(0, AttackTables.getKnightAttacks(corner) & 1L << Position.getBoardIndex(1, 2));
+  }
+
+  /**
+   * Tests that pawns attack the squares diagonally in front of them
+   */
+  @Test
+  public void testPawnAttacks() {
+    int square = Position.getBoardIndex(0, 4);
+    assertEquals(1L << Position.getBoardIndex(1, 3), AttackTables.getPawnAttacks(Color.WHITE, square));
+    assertEquals(1L << Position.getBoardIndex(1, 5), AttackTables.getPawnAttacks(Color.BLACK, square));
+    assertEquals(0, AttackTables.getPawnAttacks(Color.WHITE, Position.getBoardIndex(4, 0)));
+  }
+
+  /**
+   * Tests that the rays go outwards up to the edge of the board
+   */
+  @Test
+  public void testRays() {
+    int square = Position.getBoardIndex(2, 5);
+    int rayLength = 0;
+    for (int direction = 0; direction < AttackTables.FIRST_DIAGONAL; direction++) {
+      rayLength += AttackTables.getRay(direction, square).length;
+    }
+    assertEquals(14, rayLength);
+    assertArrayEquals(new int[] { Position.getBoardIndex(3, 5), Position.getBoardIndex(4, 5),
+        Position.getBoardIndex(5, 5), Position.getBoardIndex(6, 5), Position.getBoardIndex(7, 5) },
+        AttackTables.getRay(0, square));
+    assertEquals(0, AttackTables.getRay(AttackTables.DIRECTION_AMOUNT - 1, Position.getBoardIndex(0, 0)).length);
+  }
+
+  /**
+   * Tests that the sliding attacks stop at the first occupied square and include
+   * it
+   */
+  @Test
+  public void testSlidingAttacks() {
+    int square = Position.getBoardIndex(3, 3);
+    assertEquals(14, Long.bitCount(AttackTables.getRookAttacks(square, 0)));
+    assertEquals(13, Long.bitCount(AttackTables.getBishopAttacks(square, 0)));
+
+    // block the rook to the right and the bishop towards (0, 0)
+    long occupancy = 1L << Position.getBoardIndex(5, 3) | 1L << Position.getBoardIndex(1, 1) | 1L << square;
+    long rookAttacks = AttackTables.getRookAttacks(square, occupancy);
+    assertEquals(12, Long.bitCount(rookAttacks));
+    assertNotEquals(0, rookAttacks & 1L << Position.getBoardIndex(5, 3));
+    assertEquals(0, rookAttacks & 1L << Position.getBoardIndex(6, 3));
+    long bishopAttacks = AttackTables.getBishopAttacks(square, occupancy);
+    assertEquals(12, Long.bitCount(bishopAttacks));
+    assertNotEquals(0, bishopAttacks & 1L << Position.getBoardIndex(1, 1));
+    assertEquals(0, bishopAttacks & 1L << Position.getBoardIndex(0, 0));
+  }
+}
@@ -1,7 +1,6 @@
 package schach.game.pieces;
 
 import schach.common.Color;
-import schach.common.Position;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,17 +19,6 @@ public class BishopPieceTest {
     assertEquals(3, bishop.getOrdinal());
   }
 
-  /**
-   * Tests if the bishop color is calculated correctly
-   */
-  @Test
-  public void testsnotifyPosition() {
-    bishop.notifyPosition(new Position(2, 7));
-    assertEquals(bishop.getSquareColor(), Color.BLACK);
-    bishop.notifyPosition(new Position(5, 7));
-    assertEquals(bishop.getSquareColor(), Color.WHITE);
-  }
-
   /**
    * Tests if shortName is returned correctly
    */
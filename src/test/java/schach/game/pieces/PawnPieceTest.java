@@ -1,6 +1,11 @@
 package schach.game.pieces;
 
+import java.util.ArrayList;
+
 import schach.common.Color;
+import schach.common.Position;
+import schach.game.accumulators.CollectionAccumulator;
+import schach.game.moves.Move;
 import schach.game.state.GameState;
 
 import org.junit.jupiter.api.Test;
@@ -58,6 +63,29 @@ public class PawnPieceTest {
     assertValidMove(game, "c2-c1");
   }
 
+  /**
+   * Tests that only captures and promotions are generated if the accumulator
+   * doesn't want non-attacking moves.
+   */
+  @Test
+  public void testAccumulateCapturingOnly() {
+    GameState game = gameFromMoves("d2-d4", "e7-e5", "d4-d5", "c7-c5", "d5-c6", "b7-b5", "c6-c7", "c8-a6");
+    CollectionAccumulator<ArrayList<Move>> accumulator = new CollectionAccumulator<>(new ArrayList<Move>()) {
+      @Override
+      public boolean generateNonAttacking() {
+        return false;
+      }
+    };
+
+    // the pawn about to promote can capture on two squares or promote on one
+    game.accumulateMovesFor(accumulator, new Position(2, 1));
+    assertEquals(12, accumulator.getMoves().size());
+
+    // other pawns have nothing to capture
+    game.accumulateMovesFor(accumulator, new Position(0, 6));
+    assertEquals(12, accumulator.getMoves().size());
+  }
+
   /**
    * Tests if moves that don't capture are implemented correctly
    */
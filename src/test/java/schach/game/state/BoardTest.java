@@ -3,17 +3,20 @@ package schach.game.state;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import schach.common.Color;
 import schach.common.Constants;
 import schach.common.Position;
+import schach.game.moves.Move;
+import schach.game.moves.MoveType;
 import schach.game.moves.Movement;
 import schach.game.pieces.BishopPiece;
-import schach.game.pieces.HistoryPiece;
 import schach.game.pieces.KnightPiece;
 import schach.game.pieces.PawnPiece;
 import schach.game.pieces.Piece;
+import schach.game.pieces.PieceType;
 import schach.game.pieces.QueenPiece;
 import schach.game.pieces.RookPiece;
 
@@ -42,6 +45,34 @@ public class BoardTest {
     assertEquals(piece, board.getPieces().get(index));
   }
 
+  /**
+   * Tests that the bitboards are kept in sync with the pieces on the board.
+   */
+  @Test
+  public void testBitboards() {
+    GameState game = new GameState();
+    Board board = game.getBoard();
+    assertEquals(32, board.getPieceAmount());
+    assertEquals(0xFFFFL, board.getColorBits(Color.BLACK));
+    assertEquals(0xFFFFL << 48, board.getColorBits(Color.WHITE));
+    assertEquals(Board.squareBit(new Position(4, 7).getBoardIndex()), board.getPieceBits(Color.WHITE, PieceType.KING));
+    assertEquals(16, Long.bitCount(board.getTypeBits(PieceType.PAWN)));
+
+    // moving and capturing updates the bits of the moved and captured pieces
+    applyMoves(game, "e2-e4", "d7-d5", "e4-d5");
+    int fromIndex = new Position(4, 6).getBoardIndex();
+    int toIndex = new Position(3, 3).getBoardIndex();
+    assertEquals(31, board.getPieceAmount());
+    assertEquals(0, board.getOccupancy() & Board.squareBit(fromIndex));
+    assertNotEquals(0, board.getPieceBits(Color.WHITE, PieceType.PAWN) & Board.squareBit(toIndex));
+    assertEquals(0, board.getColorBits(Color.BLACK) & Board.squareBit(toIndex));
+
+    // undoing the capture restores the bits
+    game.getJournal().undoMove();
+    assertEquals(32, board.getPieceAmount());
+    assertNotEquals(0, board.getPieceBits(Color.BLACK, PieceType.PAWN) & Board.squareBit(toIndex));
+  }
+
   /**
    * Tests that the attack detection works correctly.
    */
@@ -54,6 +85,34 @@ public class BoardTest {
     assertFalse(board.isAttackedAt(new Position(1, 4)));
   }
 
+  /**
+   * Tests that squares are found to be attacked by each kind of piece of the
+   * given color and that blocked rays don't attack.
+   */
+  @Test
+  public void testIsSquareAttacked() {
+    Board board = new GameState("4k3/8/8/3p4/8/1n6/8/R3K2B w - - 0 1").getBoard();
+    // black pawn on d5 attacks c4 and e4, nothing attacks h4
+    assertTrue(board.isSquareAttacked(new Position(2, 4), Color.BLACK));
+    assertTrue(board.isSquareAttacked(new Position(4, 4), Color.BLACK));
+    assertFalse(board.isSquareAttacked(new Position(7, 4), Color.BLACK));
+    // black knight on b3 attacks a1 and d2
+    assertTrue(board.isSquareAttacked(new Position(0, 7), Color.BLACK));
+    assertTrue(board.isSquareAttacked(new Position(3, 6), Color.BLACK));
+    // black king on e8 attacks d7
+    assertTrue(board.isSquareAttacked(new Position(3, 1), Color.BLACK));
+    // the white rook on a1 attacks along the rank up to the king
+    assertTrue(board.isSquareAttacked(new Position(3, 7), Color.WHITE));
+    assertTrue(board.isSquareAttacked(new Position(0, 0), Color.WHITE));
+    // the white bishop on h1 is blocked by the pawn on d5
+    assertTrue(board.isSquareAttacked(new Position(3, 3), Color.WHITE));
+    assertFalse(board.isSquareAttacked(new Position(2, 2), Color.WHITE));
+    // white pawns attack towards y = 0
+    Board start = new GameState().getBoard();
+    assertTrue(start.isSquareAttacked(new Position(2, 5), Color.WHITE));
+    assertFalse(start.isSquareAttacked(new Position(2, 4), Color.WHITE));
+  }
+
   /**
    * Tests if the captured pieces are properly sorted into the list of captured
    * pieces. For this, the captured pieces from game2 (intoDraw) are used.
@@ -122,7 +181,7 @@ public class BoardTest {
   public void testPlaceNewPiece() {
     Board board = new Board(new GameState());
     Position position = new Position(0, 0);
-    HistoryPiece piece = new RookPiece(Color.WHITE);
+    Piece piece = new RookPiece(Color.WHITE);
     board.placeNewPiece(position, piece);
 
     // test 2: that 'pieces' (HashMap) is updated with the new piece that was placed
@@ -216,4 +275,92 @@ public class BoardTest {
     assertSufficientMaterial(true, new Position(2, 0), new Position(2, 7));
     assertSufficientMaterial(false, new Position(2, 0), new Position(5, 7));
   }
+
+  /**
+   * Tests that the piece amounts follow captures and promotions and that they're
+   * restored when the moves are reversed.
+   */
+  @Test
+  public void testPieceAmount() {
+    GameState game = new GameState("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+    Board board = game.getBoard();
+    Movement promotion = new Movement(new Position(0, 1), new Position(1, 0));
+    promotion.setMoveType(MoveType.PROMOTION_KNIGHT);
+    game.doMove(game.validateMove(promotion));
+    assertEquals(0, board.getPieceAmount(Color.WHITE, PieceType.PAWN));
+    assertEquals(1, board.getPieceAmount(Color.WHITE, PieceType.KNIGHT));
+    assertEquals(0, board.getPieceAmount(Color.BLACK, PieceType.ROOK));
+    assertTrue(board.hasInsufficientMaterial());
+
+    game.getJournal().undoMove();
+    assertEquals(1, board.getPieceAmount(Color.WHITE, PieceType.PAWN));
+    assertEquals(0, board.getPieceAmount(Color.WHITE, PieceType.KNIGHT));
+    assertEquals(1, board.getPieceAmount(Color.BLACK, PieceType.ROOK));
+    assertFalse(board.hasInsufficientMaterial());
+  }
+
+  /**
+   * Sums up the scores of the pieces of the given color from scratch.
+   * 
+   * @param board Board to sum up the scores of
+   * @param color Color of the pieces
+   * @return Sum of the scores
+   */
+  private int sumScores(Board board, Color color) {
+    int score = 0;
+    for (Map.Entry<Integer, Piece> entry : board.getPieces().entrySet()) {
+      if (entry.getValue().getColor() == color) {
+        score += PieceSquareTables.getScore(entry.getValue(), entry.getKey());
+      }
+    }
+    return score;
+  }
+
+  /**
+   * Tests that the scores of the colors are kept up to date when moves with
+   * captures and promotions are applied and reversed.
+   */
+  @Test
+  public void testScores() {
+    GameState game = new GameState("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+    Board board = game.getBoard();
+    int whiteScore = board.getScore(Color.WHITE);
+    int blackScore = board.getScore(Color.BLACK);
+    assertEquals(sumScores(board, Color.WHITE), whiteScore);
+    assertEquals(sumScores(board, Color.BLACK), blackScore);
+
+    for (Move move : game.getAllLegalMoves()) {
+      game.runWithMove(move, () -> {
+        assertEquals(sumScores(board, Color.WHITE), board.getScore(Color.WHITE));
+        assertEquals(sumScores(board, Color.BLACK), board.getScore(Color.BLACK));
+        return null;
+      });
+      assertEquals(whiteScore, board.getScore(Color.WHITE));
+      assertEquals(blackScore, board.getScore(Color.BLACK));
+    }
+  }
+
+  /**
+   * Tests that castling rights are removed when a king or rook moves or a rook
+   * is captured and restored when the move is undone.
+   */
+  @Test
+  public void testCastlingRights() {
+    GameState game = gameFromMoves("g2-g4", "b7-b6", "f1-g2", "c8-b7", "g2-b7", "e7-e6", "b7-a8");
+    Board board = game.getBoard();
+    assertEquals(0b1101, board.getCastlingRights());
+    assertEquals(0b1101, game.copy().getBoard().getCastlingRights());
+    game.getJournal().undoMove();
+    assertEquals(0b1111, board.getCastlingRights());
+    assertEquals(board.computeHash(), board.getHash());
+
+    // moving the king removes both rights of its color
+    applyMoves(game, "a2-a3", "e8-e7");
+    assertEquals(0b1100, board.getCastlingRights());
+    game.getJournal().undoMove();
+    assertEquals(0b1111, board.getCastlingRights());
+
+    // rights without their king and rook on the starting squares are ignored
+    assertEquals(0b0100, new GameState("4k3/8/8/8/8/8/8/4K2R w KQkq - 0 1").getBoard().getCastlingRights());
+  }
 }
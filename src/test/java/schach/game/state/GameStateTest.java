@@ -12,6 +12,7 @@ import schach.game.moves.CapturingMove;
 import schach.game.moves.Move;
 import schach.game.moves.MoveType;
 import schach.game.moves.Movement;
+import schach.game.pieces.PieceType;
 import schach.game.pieces.RookPiece;
 
 import org.junit.jupiter.api.Test;
@@ -172,4 +173,209 @@ public class GameStateTest {
     List<Move> testAccumulator2 = game.getLegalMovesFor(new Position(1, 6));
     assertEquals(testAccumulator2, noMoves);
   }
+
+  /**
+   * Tests that the hash identifies game states independently of the order of the
+   * moves that lead to them and that it takes the active color, castling rights
+   * and en passant into account.
+   */
+  @Test
+  public void testGetHash() {
+    long initialHash = new GameState().getHash();
+
+    // moving the knights back and forth leads to the same game state
+    GameState game = gameFromMoves("g1-f3", "g8-f6", "f3-g1", "f6-g8");
+    assertEquals(initialHash, game.getHash());
+
+    // transpositions have the same hash
+    assertEquals(gameFromMoves("e2-e3", "e7-e6", "d2-d3").getHash(),
+        gameFromMoves("d2-d3", "e7-e6", "e2-e3").getHash());
+
+    // the active color is part of the hash
+    assertNotEquals(gameFromMoves("g1-f3", "g8-f6", "f3-g1").getHash(),
+        gameFromMoves("g1-f3", "g8-f6", "f3-g1", "f6-g8", "b1-c3").getHash());
+
+    // moving a rook away and back removes the castling right
+    GameState rookMoved = gameFromMoves("h2-h4", "a7-a6", "h1-h2", "a6-a5", "h2-h1", "a5-a4");
+    GameState knightMoved = gameFromMoves("h2-h4", "a7-a6", "g1-f3", "a6-a5", "f3-g1", "a5-a4");
+    assertEquals(0b1011, rookMoved.getBoard().getCastlingRights());
+    assertEquals(0b1111, knightMoved.getBoard().getCastlingRights());
+    assertNotEquals(rookMoved.getHash(), knightMoved.getHash());
+
+    // a pawn double step enables en passant on its file until the next move
+    game = gameFromMoves("e2-e4");
+    assertEquals(4, game.getEnPassantFile());
+    applyMoves(game, "a7-a6");
+    assertEquals(-1, game.getEnPassantFile());
+
+    // undoing all moves restores the initial hash
+    game.getJournal().undoUntil(null);
+    assertEquals(initialHash, game.getHash());
+  }
+
+  /**
+   * Tests that the incrementally updated board hash matches a freshly computed
+   * hash after captures, promotions and castling and after undoing them.
+   */
+  @Test
+  public void testIncrementalHash() {
+    GameState game = gameFromMoves("a2-a4", "b7-b5", "a4-b5", "a7-a6", "b5-a6", "c8-b7", "a6-b7", "b8-c6",
+        "b7-a8Q", "e7-e5", "g1-f3", "f8-c5", "e2-e3", "g8-f6", "f1-e2", "e8-g8");
+    Board board = game.getBoard();
+    assertEquals(board.computeHash(), board.getHash());
+    assertEquals(0b1100, board.getCastlingRights());
+
+    // undo everything step by step and check the hash on the way
+    while (!game.getJournal().getHistory().isEmpty()) {
+      game.getJournal().undoMove();
+      assertEquals(board.computeHash(), board.getHash());
+    }
+    assertEquals(new GameState().getHash(), game.getHash());
+  }
+
+  /**
+   * Tests that game states constructed from a FEN are the same as game states
+   * reached by playing the moves.
+   */
+  @Test
+  public void testFromFen() {
+    GameState start = new GameState("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+    assertEquals(new GameState().getHash(), start.getHash());
+    assertEquals(0b1111, start.getBoard().getCastlingRights());
+    assertEquals(0, start.getMoveIndex());
+
+    // the en passant file and active color are taken from the FEN
+    GameState played = gameFromMoves("e2-e4", "g8-f6", "e4-e5", "d7-d5");
+    GameState loaded = new GameState("rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3");
+    assertEquals(played.getHash(), loaded.getHash());
+    assertEquals(played.getMoveIndex(), loaded.getMoveIndex());
+    assertValidMove(loaded, "e5-d6");
+
+    // kings and rooks without castling rights can't castle
+    GameState noCastling = new GameState("r3k2r/8/8/8/8/8/8/R3K2R b Qk - 4 20");
+    assertEquals(Color.BLACK, noCastling.getActiveColor());
+    assertEquals(0b1001, noCastling.getBoard().getCastlingRights());
+    assertValidMove(noCastling, "e8-g8");
+    assertInvalidMove(noCastling, "e8-c8");
+    assertEquals(39, noCastling.getMoveIndex());
+
+    assertThrows(IllegalArgumentException.class, () -> new GameState("8/8/8/8/8/8/8 w - -"));
+    assertThrows(IllegalArgumentException.class, () -> new GameState("8/8/8/8/8/8/8/7X w - -"));
+    assertThrows(IllegalArgumentException.class, () -> new GameState("8/8/8/8/8/8/8/9 w - -"));
+    assertThrows(IllegalArgumentException.class, () -> new GameState("8/8/8/8/8/8/8/8 x - -"));
+    assertThrows(IllegalArgumentException.class, () -> new GameState("8/8/8/8/8/8/8/8 w - z3"));
+  }
+
+  /**
+   * Tests that copies have the same state as the original game state and can be
+   * changed independently of it.
+   */
+  @Test
+  public void testCopy() {
+    GameState game = gameFromMoves("e2-e4", "d7-d5", "e4-d5", "g8-f6");
+    GameState copy = game.copy();
+    assertEquals(game.getHash(), copy.getHash());
+    assertEquals(game.getMoveIndex(), copy.getMoveIndex());
+    assertEquals(game.getActiveColor(), copy.getActiveColor());
+    assertEquals(game.getJournal().getHistory().size(), copy.getJournal().getHistory().size());
+
+    // moves on the copy don't change the original
+    long hash = game.getHash();
+    copy.doMove(copy.validateMove(new Movement(new Position(5, 7), new Position(1, 3))));
+    assertEquals(hash, game.getHash());
+    assertNotEquals(hash, copy.getHash());
+
+    // undoing on the copy doesn't change the original
+    copy.getJournal().undoMove();
+    assertEquals(hash, copy.getHash());
+    copy.getJournal().undoMove();
+    assertEquals(hash, game.getHash());
+    assertEquals(4, game.getJournal().getHistory().size());
+
+    // copies of game states loaded from a FEN have the same state
+    GameState loaded = new GameState("r3k2r/8/8/8/8/8/8/R3K2R b Qk - 4 20");
+    assertEquals(loaded.getHash(), loaded.copy().getHash());
+    assertEquals(loaded.getMoveIndex(), loaded.copy().getMoveIndex());
+  }
+
+  @Test
+  public void testCopyPromotion() {
+    GameState game = new GameState("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+    Movement promotion = new Movement(new Position(1, 1), new Position(1, 0));
+    promotion.setMoveType(MoveType.PROMOTION_QUEEN);
+    game.doMove(game.validateMove(promotion));
+    GameState copy = game.copy();
+    assertEquals(game.getHash(), copy.getHash());
+
+    // reversing the promotion on the copy leaves the promoted piece intact
+    copy.getJournal().undoMove();
+    assertEquals(PieceType.PAWN, copy.getBoard().getPieceAt(new Position(1, 1)).getType());
+    assertEquals(PieceType.QUEEN, game.getBoard().getPieceAt(new Position(1, 0)).getType());
+    game.getJournal().undoMove();
+    assertEquals(copy.getHash(), game.getHash());
+  }
+
+  /**
+   * Tests that the third occurrence of a game state is a draw and that moves
+   * that can't be reversed prevent repetitions.
+   */
+  @Test
+  public void testRepetition() {
+    GameState game = gameFromMoves("g1-f3", "g8-f6", "f3-g1", "f6-g8");
+    assertEquals(1, game.countRepetitions());
+    assertEquals(GameStatus.NONE, game.getStatus());
+    assertEquals(1, game.copy().countRepetitions());
+
+    game = gameFromMoves("g1-f3", "g8-f6", "f3-g1", "f6-g8", "g1-f3", "g8-f6", "f3-g1", "f6-g8");
+    assertEquals(2, game.countRepetitions());
+    assertEquals(GameStatus.DRAW, game.getStatus());
+    game.getJournal().undoMove();
+    assertEquals(1, game.countRepetitions());
+
+    // only the game state right after the pawn move is repeated
+    game = gameFromMoves("g1-f3", "g8-f6", "f3-g1", "f6-g8", "e2-e3", "g8-f6", "g1-f3", "f6-g8", "f3-g1");
+    assertEquals(1, game.countRepetitions());
+  }
+
+  /**
+   * Tests that the history stacks grow in long games and are restored correctly
+   * when the moves are undone again.
+   */
+  @Test
+  public void testLongHistory() {
+    String[] shuffle = { "g8-f6", "g1-f3", "f6-g8", "f3-g1" };
+    String[] movements = new String[301];
+    movements[0] = "e2-e4";
+    for (int i = 1; i < movements.length; i++) {
+      movements[i] = shuffle[(i - 1) % shuffle.length];
+    }
+    GameState game = gameFromMoves(movements);
+    assertEquals(-1, game.getEnPassantFile());
+    assertEquals(GameStatus.DRAW, game.getStatus());
+
+    GameState expected = gameFromMoves("e2-e4");
+    for (int i = 1; i < movements.length; i++) {
+      game.getJournal().undoMove();
+    }
+    assertEquals(expected.getHash(), game.getHash());
+    assertEquals(4, game.getEnPassantFile());
+    assertEquals(0, game.countRepetitions());
+    assertEquals(GameStatus.NONE, game.getStatus());
+  }
+
+  /**
+   * Tests that a cached game status doesn't hide the draw rules that depend on
+   * the moves leading to the game state.
+   */
+  @Test
+  public void testCachedStatus() {
+    GameState game = gameFromMoves("g1-f3", "g8-f6", "f3-g1", "f6-g8", "g1-f3", "g8-f6", "f3-g1");
+    assertEquals(GameStatus.NONE, game.getStatus());
+    game.doMove(game.validateMove(new Movement(new Position(5, 2), new Position(6, 0))));
+    assertEquals(GameStatus.DRAW, game.getStatus());
+    game.getJournal().undoMove();
+    game.getJournal().undoMove();
+    assertEquals(GameStatus.NONE, game.getStatus());
+    assertFalse(game.isRuleDraw());
+  }
 }
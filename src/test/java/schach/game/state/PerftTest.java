@@ -0,0 +1,98 @@
+package schach.game.state;
+
+import java.util.Map;
+
+import schach.game.moves.Move;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the move generation by comparing the perft node counts of well known
+ * reference positions with their published values.
+ */
+public class PerftTest {
+  /**
+   * Asserts that the perft counts of the given game state match the expected
+   * counts for the depths starting at 1.
+   * 
+   * @param fen    Game state to count in FEN
+   * @param counts Expected counts for each depth
+   */
+  private static void assertPerft(String fen, long... counts) {
+    GameState game = new GameState(fen);
+    long hash = game.getHash();
+    for (int depth = 1; depth <= counts.length; depth++) {
+      assertEquals(counts[depth - 1], game.perft(depth), "perft(" + depth + ") of " + fen);
+    }
+
+    // counting doesn't change the game state
+    assertEquals(hash, game.getHash());
+  }
+
+  /**
+   * Tests the starting position.
+   */
+  @Test
+  public void testStartingPosition() {
+    GameState game = new GameState();
+    assertEquals(1, game.perft(0));
+    assertEquals(20, game.perft(1));
+    assertEquals(400, game.perft(2));
+    assertEquals(8902, game.perft(3));
+    assertEquals(197281, game.perft(4));
+  }
+
+  /**
+   * Tests a position with many castling, en passant and promotion possibilities.
+   * (Kiwipete)
+   */
+  @Test
+  public void testKiwipete() {
+    assertPerft("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 48, 2039, 97862);
+  }
+
+  /**
+   * Tests an endgame position with en passant captures that expose the king.
+   */
+  @Test
+  public void testEndgame() {
+    assertPerft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238);
+  }
+
+  /**
+   * Tests a position with capturing promotions and castling rights of only one
+   * color.
+   */
+  @Test
+  public void testPromotions() {
+    assertPerft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6, 264, 9467);
+  }
+
+  /**
+   * Tests a position with a pawn about to promote next to a checking knight.
+   */
+  @Test
+  public void testPromotionWithCheck() {
+    assertPerft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 44, 1486, 62379);
+  }
+
+  /**
+   * Tests a symmetrical middlegame position.
+   */
+  @Test
+  public void testMiddlegame() {
+    assertPerft("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 46, 2079, 89890);
+  }
+
+  /**
+   * Tests that the divided counts add up to the total count.
+   */
+  @Test
+  public void testPerftDivide() {
+    GameState game = new GameState("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+    Map<Move, Long> counts = game.perftDivide(2);
+    assertEquals(48, counts.size());
+    assertEquals(2039, counts.values().stream().mapToLong(Long::longValue).sum());
+  }
+}